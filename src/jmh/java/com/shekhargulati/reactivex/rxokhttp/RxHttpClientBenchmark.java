@@ -0,0 +1,206 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.shekhargulati.reactivex.rxokhttp.functions.StringResponseToCollectionTransformer;
+import com.shekhargulati.reactivex.rxokhttp.functions.StringResponseTransformer;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the request, streaming and upload hot paths of the client against a local MockWebServer and a local Unix
+ * socket server. Run with ./gradlew jmh, which also enables the GC profiler to report allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RxHttpClientBenchmark {
+
+    private static final String SMALL = "/small";
+    private static final String LARGE = "/large";
+    private static final String STREAM = "/stream";
+    private static final String BUILD = "/build";
+
+    private static final int LARGE_ELEMENTS = 10_000;
+    private static final int STREAM_LINES = 100_000;
+    private static final int TAR_SIZE = 16 * 1024 * 1024;
+
+    private static final Type ELEMENTS = new TypeToken<List<Map<String, Object>>>() {
+    }.getType();
+
+    @Param({"tcp", "unix"})
+    public String transport;
+
+    private final Gson gson = new Gson();
+
+    private MockWebServer mockWebServer;
+    private UnixSocketHttpServer unixSocketServer;
+    private Path socketDirectory;
+    private Path tarArchive;
+    private RxHttpClient client;
+    private int takenRequests = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Map<String, Buffer> responseBodies = responseBodies();
+
+        tarArchive = Files.createTempFile("rx-okhttp-benchmark", ".tar");
+        byte[] archive = new byte[TAR_SIZE];
+        new Random(42).nextBytes(archive);
+        Files.write(tarArchive, archive);
+
+        if ("unix".equals(transport)) {
+            socketDirectory = Files.createTempDirectory("rx-okhttp-benchmark");
+            Path socketFile = socketDirectory.resolve("benchmark.sock");
+            unixSocketServer = new UnixSocketHttpServer(socketFile.toFile(), responseBodies);
+            client = RxHttpClient.newUnixSocketRxClient(socketFile.toString());
+        } else {
+            mockWebServer = new MockWebServer();
+            mockWebServer.setBodyLimit(0);
+            mockWebServer.setDispatcher(new Dispatcher() {
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    Buffer body = responseBodies.getOrDefault(request.getPath(), new Buffer());
+                    return new MockResponse().setBody(body.clone());
+                }
+            });
+            mockWebServer.start();
+            client = RxHttpClient.newRxClient(mockWebServer.url("/").toString());
+        }
+    }
+
+    /**
+     * MockWebServer keeps every recorded request, they are taken after each iteration so the server's memory usage
+     * does not show up in the measurements.
+     */
+    @TearDown(Level.Iteration)
+    public void takeRecordedRequests() throws InterruptedException {
+        if (mockWebServer != null) {
+            while (takenRequests < mockWebServer.getRequestCount()) {
+                mockWebServer.takeRequest();
+                takenRequests++;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (mockWebServer != null) {
+            mockWebServer.shutdown();
+        }
+        if (unixSocketServer != null) {
+            unixSocketServer.close();
+            Files.deleteIfExists(socketDirectory.resolve("benchmark.sock"));
+            Files.deleteIfExists(socketDirectory);
+        }
+        Files.deleteIfExists(tarArchive);
+    }
+
+    @Benchmark
+    public String smallGet() {
+        return client.get(SMALL).toBlocking().single();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> largeCollectionGet() {
+        StringResponseToCollectionTransformer<Map<String, Object>> transformer = json -> gson.fromJson(json, ELEMENTS);
+        return client.get(LARGE, transformer).toList().toBlocking().single();
+    }
+
+    @Benchmark
+    public Integer largeCollectionStream() {
+        return client.getJsonArrayStream(LARGE, Collections.emptyMap(), json -> gson.fromJson(json, Map.class))
+                .count()
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    public Integer responseStreamChunks() {
+        return client.getResponseStream(STREAM).count().toBlocking().single();
+    }
+
+    @Benchmark
+    public Integer responseStreamLines() {
+        return client.getResponseStream(STREAM, Collections.emptyMap(), Delimiter.NEWLINE, StringResponseTransformer.identityOp())
+                .count()
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    public Long responseBufferStream() {
+        return client.getResponseBufferStream(STREAM)
+                .map(Buffer::size)
+                .reduce(0L, (total, size) -> total + size)
+                .toBlocking()
+                .single();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public HttpStatus postTarStream() {
+        return client.postTarStream(BUILD, tarArchive).toBlocking().single();
+    }
+
+    private static Map<String, Buffer> responseBodies() {
+        Map<String, Buffer> bodies = new HashMap<>();
+        bodies.put(SMALL, new Buffer().writeUtf8("{\"Id\":\"4fa6e0f0c678\",\"Status\":\"running\"}"));
+
+        Buffer large = new Buffer().writeUtf8("[");
+        for (int i = 0; i < LARGE_ELEMENTS; i++) {
+            if (i > 0) {
+                large.writeUtf8(",");
+            }
+            large.writeUtf8("{\"Id\":\"" + i + "\",\"Image\":\"ubuntu:16.04\",\"Command\":\"/bin/sh -c 'sleep 1000'\",\"Labels\":{\"index\":\"" + i + "\"}}");
+        }
+        bodies.put(LARGE, large.writeUtf8("]"));
+
+        Buffer stream = new Buffer();
+        for (int i = 0; i < STREAM_LINES; i++) {
+            stream.writeUtf8("{\"status\":\"Downloading\",\"progressDetail\":{\"current\":" + i + ",\"total\":" + STREAM_LINES + "}}\r\n");
+        }
+        bodies.put(STREAM, stream);
+        bodies.put(BUILD, new Buffer().writeUtf8("{\"stream\":\"Successfully built\"}"));
+        return bodies;
+    }
+}
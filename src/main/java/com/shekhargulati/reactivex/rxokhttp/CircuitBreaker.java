@@ -0,0 +1,196 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Lock free circuit breaker. Outcomes of calls are counted in a ring of time buckets forming a sliding window; a bucket
+ * is reset by whichever thread first records into it after it went out of the window, so counts are approximate under
+ * contention. State transitions replace an immutable Phase with compareAndSet, each half-open phase carrying its own
+ * probe counters. Every call is permitted under the phase that was current at the time, and its outcome only counts
+ * while that phase still is current, so a slow call made before the circuit opened can't close it again.
+ */
+class CircuitBreaker {
+
+    private static final int BUCKETS = 10;
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final CircuitBreakerPolicy policy;
+    private final long bucketMillis;
+    private final long slowCallNanos;
+    private final Bucket[] buckets = new Bucket[BUCKETS];
+    private final AtomicReference<Phase> phase = new AtomicReference<>(new Phase(State.CLOSED, 0));
+
+    CircuitBreaker(final String name, final CircuitBreakerPolicy policy) {
+        this.name = name;
+        this.policy = policy;
+        this.bucketMillis = Math.max(1, policy.getWindow().toMillis() / BUCKETS);
+        this.slowCallNanos = policy.getSlowCallDuration().toNanos();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    State state() {
+        return phase.get().state;
+    }
+
+    /**
+     * @return permit to make a call, in which case exactly one of onResult or onCancel must follow, or null if the
+     * circuit is open or all the probes of the half-open circuit are taken
+     */
+    Permit tryAcquire() {
+        Phase current = phase.get();
+        if (current.state == State.OPEN) {
+            if (System.currentTimeMillis() - current.openedAtMillis < policy.getOpenDuration().toMillis()) {
+                return null;
+            }
+            Phase halfOpen = new Phase(State.HALF_OPEN, current.openedAtMillis);
+            current = phase.compareAndSet(current, halfOpen) ? halfOpen : phase.get();
+        }
+        if (current.state == State.HALF_OPEN) {
+            int taken;
+            do {
+                taken = current.probes.get();
+                if (taken >= policy.getHalfOpenProbes()) {
+                    return null;
+                }
+            } while (!current.probes.compareAndSet(taken, taken + 1));
+            return new Permit(current);
+        }
+        return current.state == State.CLOSED ? new Permit(current) : null;
+    }
+
+    void onResult(final Permit permit, final boolean failed, final long elapsedNanos) {
+        Phase current = phase.get();
+        if (permit.phase != current) {
+            return;
+        }
+        boolean slow = elapsedNanos >= slowCallNanos;
+        if (current.state == State.HALF_OPEN) {
+            if (failed || slow) {
+                phase.compareAndSet(current, new Phase(State.OPEN, System.currentTimeMillis()));
+            } else if (current.successes.incrementAndGet() >= policy.getHalfOpenProbes()
+                    && phase.compareAndSet(current, new Phase(State.CLOSED, 0))) {
+                for (Bucket bucket : buckets) {
+                    bucket.epoch.set(-1);
+                }
+            }
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Bucket bucket = bucket(now);
+        bucket.calls.incrementAndGet();
+        if (failed) {
+            bucket.failures.incrementAndGet();
+        }
+        if (slow) {
+            bucket.slowCalls.incrementAndGet();
+        }
+        if ((failed || slow) && current.state == State.CLOSED && shouldOpen(now)) {
+            phase.compareAndSet(current, new Phase(State.OPEN, now));
+        }
+    }
+
+    /**
+     * Called when a permitted call was cancelled before its outcome was known, so a half-open probe slot is returned.
+     */
+    void onCancel(final Permit permit) {
+        if (permit.phase.state == State.HALF_OPEN) {
+            permit.phase.probes.decrementAndGet();
+        }
+    }
+
+    private boolean shouldOpen(final long now) {
+        long epoch = now / bucketMillis;
+        long calls = 0;
+        long failures = 0;
+        long slowCalls = 0;
+        for (Bucket bucket : buckets) {
+            if (epoch - bucket.epoch.get() < BUCKETS) {
+                calls += bucket.calls.get();
+                failures += bucket.failures.get();
+                slowCalls += bucket.slowCalls.get();
+            }
+        }
+        return calls >= policy.getMinimumCalls()
+                && (failures >= calls * policy.getFailureRateThreshold() || slowCalls >= calls * policy.getSlowCallRateThreshold());
+    }
+
+    private Bucket bucket(final long now) {
+        long epoch = now / bucketMillis;
+        Bucket bucket = buckets[(int) (epoch % BUCKETS)];
+        long seen = bucket.epoch.get();
+        if (seen != epoch && bucket.epoch.compareAndSet(seen, epoch)) {
+            bucket.calls.set(0);
+            bucket.failures.set(0);
+            bucket.slowCalls.set(0);
+        }
+        return bucket;
+    }
+
+    /**
+     * Permission to make one call, tied to the phase of the circuit it was given in.
+     */
+    static final class Permit {
+
+        private final Phase phase;
+
+        private Permit(final Phase phase) {
+            this.phase = phase;
+        }
+    }
+
+    private static class Phase {
+
+        final State state;
+        final long openedAtMillis;
+        final AtomicInteger probes = new AtomicInteger();
+        final AtomicInteger successes = new AtomicInteger();
+
+        Phase(final State state, final long openedAtMillis) {
+            this.state = state;
+            this.openedAtMillis = openedAtMillis;
+        }
+    }
+
+    private static class Bucket {
+        final AtomicLong epoch = new AtomicLong(-1);
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong slowCalls = new AtomicLong();
+    }
+}
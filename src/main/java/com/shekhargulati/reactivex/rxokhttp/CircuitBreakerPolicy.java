@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.time.Duration;
+
+/**
+ * Policy of the circuit breakers guarding the hosts, or optionally the endpoints, a client talks to. A circuit opens
+ * when, within the sliding window, enough calls have been made and either the share of failed calls or the share of
+ * slow calls reaches its threshold. Failed calls are calls failing with an I/O error or a 5xx response. An open circuit
+ * rejects calls until the open duration has elapsed, then lets a limited number of probe calls through and closes
+ * again once all of them succeeded.
+ */
+public class CircuitBreakerPolicy {
+
+    private final boolean enabled;
+    private final boolean perEndpoint;
+    private final Duration window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final Duration slowCallDuration;
+    private final double slowCallRateThreshold;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+
+    private CircuitBreakerPolicy(final boolean enabled, final boolean perEndpoint, final Duration window, final int minimumCalls, final double failureRateThreshold, final Duration slowCallDuration, final double slowCallRateThreshold, final Duration openDuration, final int halfOpenProbes) {
+        this.enabled = enabled;
+        this.perEndpoint = perEndpoint;
+        this.window = window;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    public static CircuitBreakerPolicy disabled() {
+        return new CircuitBreakerPolicy(false, false, Duration.ofSeconds(10), 20, 0.5, Duration.ofSeconds(10), 1.0, Duration.ofSeconds(30), 3);
+    }
+
+    /**
+     * @return policy with a circuit per host that opens for 30s when at least half of at least 20 calls in the last
+     * 10s failed, or when all of them took longer than 10s, and that closes after 3 successful probes
+     */
+    public static CircuitBreakerPolicy perHost() {
+        return new CircuitBreakerPolicy(true, false, Duration.ofSeconds(10), 20, 0.5, Duration.ofSeconds(10), 1.0, Duration.ofSeconds(30), 3);
+    }
+
+    /**
+     * @return copy of this policy with a circuit per host and endpoint, rather than per host
+     */
+    public CircuitBreakerPolicy perEndpoint() {
+        return new CircuitBreakerPolicy(enabled, true, window, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenProbes);
+    }
+
+    /**
+     * @param window       duration of the sliding window calls are tracked in
+     * @param minimumCalls number of calls in the window below which the circuit never opens
+     * @return copy of this policy with the sliding window
+     */
+    public CircuitBreakerPolicy window(final Duration window, final int minimumCalls) {
+        return new CircuitBreakerPolicy(enabled, perEndpoint, window, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenProbes);
+    }
+
+    /**
+     * @param failureRateThreshold share of failed calls, between 0 and 1, at which the circuit opens
+     * @return copy of this policy with the failure threshold
+     */
+    public CircuitBreakerPolicy failureRateThreshold(final double failureRateThreshold) {
+        return new CircuitBreakerPolicy(enabled, perEndpoint, window, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenProbes);
+    }
+
+    /**
+     * @param slowCallDuration      time to response headers above which a call is slow
+     * @param slowCallRateThreshold share of slow calls, between 0 and 1, at which the circuit opens
+     * @return copy of this policy with the slow call threshold
+     */
+    public CircuitBreakerPolicy slowCallThreshold(final Duration slowCallDuration, final double slowCallRateThreshold) {
+        return new CircuitBreakerPolicy(enabled, perEndpoint, window, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenProbes);
+    }
+
+    /**
+     * @param openDuration   how long an open circuit rejects calls before probing
+     * @param halfOpenProbes number of probe calls that must succeed to close the circuit
+     * @return copy of this policy with the recovery settings
+     */
+    public CircuitBreakerPolicy recovery(final Duration openDuration, final int halfOpenProbes) {
+        return new CircuitBreakerPolicy(enabled, perEndpoint, window, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, halfOpenProbes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isPerEndpoint() {
+        return perEndpoint;
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public Duration getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import rx.Observable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Circuit breakers of a client, created on first use for every host, or host and endpoint, it makes requests to. Once
+ * the registry of breakers is full, endpoints without a breaker of their own share the breaker of their host.
+ */
+class CircuitBreakers {
+
+    private final CircuitBreakerPolicy policy;
+    private final EndpointRegistry<CircuitBreaker> breakers;
+
+    CircuitBreakers(final CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        this.breakers = new EndpointRegistry<>(name -> new CircuitBreaker(name, policy));
+    }
+
+    /**
+     * Guards the execution of a call: fails fast with a CircuitBreakerOpenException while the circuit is open and
+     * otherwise records whether the call failed and how long it took to receive the response headers.
+     */
+    Observable<Response> guard(final String endpoint, final Request request, final Observable<Response> call) {
+        if (!policy.isEnabled()) {
+            return call;
+        }
+        return Observable.defer(() -> {
+            CircuitBreaker breaker = breaker(endpoint, request.url());
+            CircuitBreaker.Permit permit = breaker.tryAcquire();
+            if (permit == null) {
+                return Observable.<Response>error(new CircuitBreakerOpenException(breaker.name()));
+            }
+            long startNanos = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return call
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            breaker.onResult(permit, response.code() >= 500, System.nanoTime() - startNanos);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            breaker.onResult(permit, true, System.nanoTime() - startNanos);
+                        }
+                    })
+                    .doOnUnsubscribe(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            breaker.onCancel(permit);
+                        }
+                    });
+        });
+    }
+
+    CircuitBreaker breaker(final String endpoint, final HttpUrl url) {
+        String host = url.host() + ":" + url.port();
+        return breakers.get(policy.isPerEndpoint() ? host + " " + EndpointRegistry.path(endpoint) : host, host);
+    }
+}
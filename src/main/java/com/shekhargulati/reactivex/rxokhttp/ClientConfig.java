@@ -1,34 +1,77 @@
 package com.shekhargulati.reactivex.rxokhttp;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+
 import java.time.Duration;
 
 public class ClientConfig {
 
-    private boolean followRedirects = true;
-    private boolean followSslRedirects = true;
-    private Duration readTimeout = Duration.ZERO;
-    private Duration writeTimeout;
-    private boolean retryOnConnectionFailure = true;
-    private Duration connectTimeout;
-
-    private ClientConfig() {
-    }
+    private final boolean followRedirects;
+    private final boolean followSslRedirects;
+    private final Duration readTimeout;
+    private final Duration writeTimeout;
+    private final boolean retryOnConnectionFailure;
+    private final Duration connectTimeout;
+    private final boolean asyncExecution;
+    private final int maxIdleConnections;
+    private final Duration keepAliveDuration;
+    private final int maxRequests;
+    private final int maxRequestsPerHost;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final RequestListener requestListener;
+    private final RequestTracer requestTracer;
+    private final Cache cache;
+    private final long memoryCacheSize;
+    private final long memoryCacheMaxEntrySize;
+    private final Duration staleWhileRevalidate;
+    private final boolean coalesceGetRequests;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreakerPolicy circuitBreakerPolicy;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final HedgePolicy hedgePolicy;
+    private final long maxErrorBodySize;
+    private final HttpHeaders defaultHeaders;
+    private final Duration callTimeout;
 
-    private ClientConfig(boolean followRedirects, boolean followSslRedirects, Duration readTimeout, Duration writeTimeout, boolean retryOnConnectionFailure, Duration connectTimeout) {
-        this.followRedirects = followRedirects;
-        this.followSslRedirects = followSslRedirects;
-        this.readTimeout = readTimeout;
-        this.writeTimeout = writeTimeout;
-        this.retryOnConnectionFailure = retryOnConnectionFailure;
-        this.connectTimeout = connectTimeout;
+    private ClientConfig(ClientConfigBuilder builder) {
+        this.followRedirects = builder.followRedirects;
+        this.followSslRedirects = builder.followSslRedirects;
+        this.readTimeout = builder.readTimeout;
+        this.writeTimeout = builder.writeTimeout;
+        this.retryOnConnectionFailure = builder.retryOnConnectionFailure;
+        this.connectTimeout = builder.connectTimeout;
+        this.asyncExecution = builder.asyncExecution;
+        this.maxIdleConnections = builder.maxIdleConnections;
+        this.keepAliveDuration = builder.keepAliveDuration;
+        this.maxRequests = builder.maxRequests;
+        this.maxRequestsPerHost = builder.maxRequestsPerHost;
+        this.connectionPool = builder.connectionPool;
+        this.dispatcher = builder.dispatcher;
+        this.requestListener = builder.requestListener;
+        this.requestTracer = builder.requestTracer;
+        this.cache = builder.cache;
+        this.memoryCacheSize = builder.memoryCacheSize;
+        this.memoryCacheMaxEntrySize = builder.memoryCacheMaxEntrySize;
+        this.staleWhileRevalidate = builder.staleWhileRevalidate;
+        this.coalesceGetRequests = builder.coalesceGetRequests;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreakerPolicy = builder.circuitBreakerPolicy;
+        this.concurrencyLimit = builder.concurrencyLimit;
+        this.hedgePolicy = builder.hedgePolicy;
+        this.maxErrorBodySize = builder.maxErrorBodySize;
+        this.defaultHeaders = builder.defaultHeaders;
+        this.callTimeout = builder.callTimeout;
     }
 
     public static ClientConfig defaultConfig() {
-        return new ClientConfig();
+        return new ClientConfigBuilder().setReadTimeout(Duration.ZERO).createClientConfig();
     }
 
-    static ClientConfig createClientConfig(boolean followRedirects, boolean followSslRedirects, Duration readTimeout, Duration writeTimeout, boolean retryOnConnectionFailure, Duration connectTimeout) {
-        return new ClientConfig(followRedirects, followSslRedirects, readTimeout, writeTimeout, retryOnConnectionFailure, connectTimeout);
+    static ClientConfig createClientConfig(ClientConfigBuilder builder) {
+        return new ClientConfig(builder);
     }
 
     public boolean isFollowRedirects() {
@@ -47,6 +90,12 @@ public class ClientConfig {
         return writeTimeout;
     }
 
+    /**
+     * Whether OkHttp silently retries a request on another route when connecting fails. This is independent of the
+     * RetryPolicy, which retries whole requests.
+     *
+     * @return true if OkHttp retries connection failures
+     */
     public boolean isRetryOnConnectionFailure() {
         return retryOnConnectionFailure;
     }
@@ -54,4 +103,151 @@ public class ClientConfig {
     public Duration getConnectTimeout() {
         return connectTimeout;
     }
+
+    /**
+     * When true requests are handed over to OkHttp's Dispatcher using Call.enqueue and the Observable is completed
+     * from the callback, so no caller thread is parked while waiting for the response.
+     *
+     * @return true if requests are executed asynchronously
+     */
+    public boolean isAsyncExecution() {
+        return asyncExecution;
+    }
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public Duration getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    /**
+     * Connection pool shared with other clients. When null, a pool sized by maxIdleConnections and keepAliveDuration
+     * is created for the client.
+     *
+     * @return the shared connection pool or null
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Dispatcher shared with other clients. When null, a dispatcher limited by maxRequests and maxRequestsPerHost is
+     * created for the client. The limits are not applied to a shared dispatcher.
+     *
+     * @return the shared dispatcher or null
+     */
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public RequestListener getRequestListener() {
+        return requestListener;
+    }
+
+    public RequestTracer getRequestTracer() {
+        return requestTracer;
+    }
+
+    /**
+     * OkHttp disk cache used for responses that HTTP allows to be cached. When null, responses are not cached on disk.
+     *
+     * @return the disk cache or null
+     */
+    public Cache getCache() {
+        return cache;
+    }
+
+    /**
+     * Maximum number of response body bytes kept by the in-memory cache that sits in front of the disk cache. The
+     * memory cache is disabled when this is 0.
+     *
+     * @return size bound of the memory cache in bytes
+     */
+    public long getMemoryCacheSize() {
+        return memoryCacheSize;
+    }
+
+    /**
+     * @return largest response body in bytes that is kept in the memory cache
+     */
+    public long getMemoryCacheMaxEntrySize() {
+        return memoryCacheMaxEntrySize;
+    }
+
+    /**
+     * How long after expiry a response from the memory cache may still be served while it is revalidated in the
+     * background.
+     *
+     * @return the stale-while-revalidate window
+     */
+    public Duration getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * When true, concurrent GET requests for the same url and headers share a single in-flight call and its response
+     * body, which each subscriber then transforms on its own. This applies to every GET whose response is retrieved as
+     * a single value, the shared body being held in memory; streamed responses are never shared.
+     *
+     * @return true if identical concurrent GET requests are coalesced
+     */
+    public boolean isCoalesceGetRequests() {
+        return coalesceGetRequests;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
+    public HedgePolicy getHedgePolicy() {
+        return hedgePolicy;
+    }
+
+    /**
+     * Number of bytes of the body of an unsuccessful response that are kept in the ServiceException. The body is not
+     * captured when this is 0.
+     *
+     * @return size cap of captured error bodies in bytes
+     */
+    public long getMaxErrorBodySize() {
+        return maxErrorBodySize;
+    }
+
+    /**
+     * Headers sent with every request. Headers given to a request replace the default headers of the same name.
+     *
+     * @return headers sent with every request
+     */
+    public HttpHeaders getDefaultHeaders() {
+        return defaultHeaders;
+    }
+
+    /**
+     * Deadline of every request that has none of its own, covering everything from waiting for a connection to
+     * reading the last byte of the response body, retries included. The call is cancelled when it expires. Requests
+     * have no deadline when this is null.
+     *
+     * @return time a request may take in total
+     */
+    public Duration getCallTimeout() {
+        return callTimeout;
+    }
 }
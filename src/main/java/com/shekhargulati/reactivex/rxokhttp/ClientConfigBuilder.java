@@ -1,14 +1,39 @@
 package com.shekhargulati.reactivex.rxokhttp;
 
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+
 import java.time.Duration;
 
 public class ClientConfigBuilder {
-    private boolean followRedirects = true;
-    private boolean followSslRedirects = true;
-    private Duration readTimeout;
-    private Duration writeTimeout;
-    private boolean retryOnConnectionFailure = true;
-    private Duration connectTimeout;
+    boolean followRedirects = true;
+    boolean followSslRedirects = true;
+    Duration readTimeout;
+    Duration writeTimeout;
+    boolean retryOnConnectionFailure = true;
+    Duration connectTimeout;
+    boolean asyncExecution = false;
+    int maxIdleConnections = 5;
+    Duration keepAliveDuration = Duration.ofMinutes(5);
+    int maxRequests = 64;
+    int maxRequestsPerHost = 5;
+    ConnectionPool connectionPool;
+    Dispatcher dispatcher;
+    RequestListener requestListener = RequestListener.NONE;
+    RequestTracer requestTracer = RequestTracer.disabled();
+    Cache cache;
+    long memoryCacheSize = 0;
+    long memoryCacheMaxEntrySize = 64 * 1024;
+    Duration staleWhileRevalidate = Duration.ZERO;
+    boolean coalesceGetRequests = false;
+    RetryPolicy retryPolicy = RetryPolicy.none();
+    CircuitBreakerPolicy circuitBreakerPolicy = CircuitBreakerPolicy.disabled();
+    ConcurrencyLimit concurrencyLimit = ConcurrencyLimit.unlimited();
+    HedgePolicy hedgePolicy = HedgePolicy.disabled();
+    long maxErrorBodySize = 0;
+    HttpHeaders defaultHeaders = HttpHeaders.empty();
+    Duration callTimeout;
 
     public ClientConfigBuilder setFollowRedirects(boolean followRedirects) {
         this.followRedirects = followRedirects;
@@ -40,7 +65,112 @@ public class ClientConfigBuilder {
         return this;
     }
 
+    public ClientConfigBuilder setAsyncExecution(boolean asyncExecution) {
+        this.asyncExecution = asyncExecution;
+        return this;
+    }
+
+    public ClientConfigBuilder setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    public ClientConfigBuilder setKeepAliveDuration(Duration keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+        return this;
+    }
+
+    public ClientConfigBuilder setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public ClientConfigBuilder setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    public ClientConfigBuilder setConnectionPool(ConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+        return this;
+    }
+
+    public ClientConfigBuilder setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        return this;
+    }
+
+    public ClientConfigBuilder setRequestListener(RequestListener requestListener) {
+        this.requestListener = requestListener;
+        return this;
+    }
+
+    public ClientConfigBuilder setRequestTracer(RequestTracer requestTracer) {
+        this.requestTracer = requestTracer;
+        return this;
+    }
+
+    public ClientConfigBuilder setCache(Cache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public ClientConfigBuilder setMemoryCacheSize(long memoryCacheSize) {
+        this.memoryCacheSize = memoryCacheSize;
+        return this;
+    }
+
+    public ClientConfigBuilder setMemoryCacheMaxEntrySize(long memoryCacheMaxEntrySize) {
+        this.memoryCacheMaxEntrySize = memoryCacheMaxEntrySize;
+        return this;
+    }
+
+    public ClientConfigBuilder setStaleWhileRevalidate(Duration staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        return this;
+    }
+
+    public ClientConfigBuilder setCoalesceGetRequests(boolean coalesceGetRequests) {
+        this.coalesceGetRequests = coalesceGetRequests;
+        return this;
+    }
+
+    public ClientConfigBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public ClientConfigBuilder setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+        this.circuitBreakerPolicy = circuitBreakerPolicy;
+        return this;
+    }
+
+    public ClientConfigBuilder setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        return this;
+    }
+
+    public ClientConfigBuilder setHedgePolicy(HedgePolicy hedgePolicy) {
+        this.hedgePolicy = hedgePolicy;
+        return this;
+    }
+
+    public ClientConfigBuilder setMaxErrorBodySize(long maxErrorBodySize) {
+        this.maxErrorBodySize = maxErrorBodySize;
+        return this;
+    }
+
+    public ClientConfigBuilder setDefaultHeaders(HttpHeaders defaultHeaders) {
+        this.defaultHeaders = defaultHeaders;
+        return this;
+    }
+
+    public ClientConfigBuilder setCallTimeout(Duration callTimeout) {
+        this.callTimeout = callTimeout;
+        return this;
+    }
+
     public ClientConfig createClientConfig() {
-        return ClientConfig.createClientConfig(followRedirects, followSslRedirects, readTimeout, writeTimeout, retryOnConnectionFailure, connectTimeout);
+        return ClientConfig.createClientConfig(this);
     }
-}
\ No newline at end of file
+}
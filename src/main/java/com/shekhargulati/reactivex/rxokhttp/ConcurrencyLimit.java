@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+/**
+ * Limit on the number of requests a client has in flight, either for the whole client or per endpoint. A request
+ * holds its slot from the moment it is about to be sent until its response headers arrive or it fails. Requests over
+ * the limit are queued, up to maxQueued, or rejected with a ConcurrencyLimitExceededException.
+ * <p>
+ * An adaptive limit follows the AIMD scheme: it grows by one per limit's worth of successful requests while the limit
+ * is being used, and is cut by 10% whenever a request fails, is throttled by the server (429 / 503) or takes longer
+ * than latencyTolerance times the lowest latency recently observed.
+ */
+public class ConcurrencyLimit {
+
+    private final boolean enabled;
+    private final boolean adaptive;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final boolean perEndpoint;
+    private final double latencyTolerance;
+
+    private ConcurrencyLimit(final boolean enabled, final boolean adaptive, final int initialLimit, final int minLimit, final int maxLimit, final int maxQueued, final boolean perEndpoint, final double latencyTolerance) {
+        this.enabled = enabled;
+        this.adaptive = adaptive;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = maxQueued;
+        this.perEndpoint = perEndpoint;
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    public static ConcurrencyLimit unlimited() {
+        return new ConcurrencyLimit(false, false, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, false, 2.0);
+    }
+
+    public static ConcurrencyLimit fixed(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return new ConcurrencyLimit(true, false, limit, limit, limit, 0, false, 2.0);
+    }
+
+    public static ConcurrencyLimit adaptive(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        return new ConcurrencyLimit(true, true, initialLimit, minLimit, maxLimit, 0, false, 2.0);
+    }
+
+    /**
+     * @param maxQueued number of requests that may wait for a slot, 0 to reject requests over the limit right away
+     * @return copy of this limit queueing requests
+     */
+    public ConcurrencyLimit queue(final int maxQueued) {
+        return new ConcurrencyLimit(enabled, adaptive, initialLimit, minLimit, maxLimit, maxQueued, perEndpoint, latencyTolerance);
+    }
+
+    /**
+     * @return copy of this limit applied to each endpoint separately
+     */
+    public ConcurrencyLimit perEndpoint() {
+        return new ConcurrencyLimit(enabled, adaptive, initialLimit, minLimit, maxLimit, maxQueued, true, latencyTolerance);
+    }
+
+    /**
+     * @param latencyTolerance multiple of the lowest observed latency above which an adaptive limit is decreased
+     * @return copy of this limit with the latency tolerance
+     */
+    public ConcurrencyLimit latencyTolerance(final double latencyTolerance) {
+        return new ConcurrencyLimit(enabled, adaptive, initialLimit, minLimit, maxLimit, maxQueued, perEndpoint, latencyTolerance);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public boolean isPerEndpoint() {
+        return perEndpoint;
+    }
+
+    public double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+}
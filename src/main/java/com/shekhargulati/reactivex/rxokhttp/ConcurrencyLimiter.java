@@ -0,0 +1,304 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.observers.Subscribers;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.Subscriptions;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free limiter of the requests in flight for one group of requests, enforcing a ConcurrencyLimit. Waiting
+ * requests are kept in a queue per RequestPriority and started by whichever thread frees a slot; with synchronous
+ * execution they are started on the io Scheduler so that the freeing thread is never blocked by another request.
+ * <p>
+ * A request holds its slot until its response body has been read or closed, or the request has been unsubscribed
+ * from, as its connection stays busy until then. The latency fed to an adaptive limit is the time to response headers.
+ */
+class ConcurrencyLimiter {
+
+    private static final int MIN_RTT_RESET_SAMPLES = 1000;
+
+    private final String group;
+    private final ConcurrencyLimit policy;
+    private final RequestListener listener;
+    private final Scheduler waiterScheduler;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limit;
+    private final ConcurrentLinkedQueue<Waiter>[] waiters;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong minRttNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicInteger samples = new AtomicInteger();
+
+    ConcurrencyLimiter(final String group, final ConcurrencyLimit policy, final RequestListener listener, final boolean asyncExecution) {
+        this.group = group;
+        this.policy = policy;
+        this.listener = listener;
+        this.waiterScheduler = asyncExecution ? Schedulers.immediate() : Schedulers.io();
+        this.limit = new AtomicLong(Double.doubleToLongBits(policy.getInitialLimit()));
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<Waiter>[] queues = new ConcurrentLinkedQueue[RequestPriority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.waiters = queues;
+    }
+
+    int limit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    Observable<Response> limit(final Observable<Response> call, final RequestPriority priority) {
+        return Observable.create(subscriber -> {
+            if (tryAcquire()) {
+                run(call, subscriber);
+                return;
+            }
+            if (queued.incrementAndGet() > policy.getMaxQueued()) {
+                queued.decrementAndGet();
+                int currentLimit = limit();
+                listener.onRequestRejected(group, currentLimit);
+                subscriber.onError(new ConcurrencyLimitExceededException(group, currentLimit));
+                return;
+            }
+            Waiter waiter = new Waiter(call, subscriber);
+            subscriber.add(Subscriptions.create(waiter::cancel));
+            waiters[priority.ordinal()].offer(waiter);
+            drain();
+        });
+    }
+
+    private boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit()) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        drain();
+    }
+
+    /**
+     * Starts queued requests for as long as slots are free. Called after every release and after every enqueue, so a
+     * request enqueued while the last slot was being released is never left behind.
+     */
+    private void drain() {
+        while (hasWaiters() && tryAcquire()) {
+            Waiter waiter = pollWaiter();
+            if (waiter == null) {
+                inFlight.decrementAndGet();
+                continue;
+            }
+            if (!waiter.start()) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean hasWaiters() {
+        for (ConcurrentLinkedQueue<Waiter> queue : waiters) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Waiter pollWaiter() {
+        for (ConcurrentLinkedQueue<Waiter> queue : waiters) {
+            Waiter waiter = queue.poll();
+            if (waiter != null) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    private void run(final Observable<Response> call, final Subscriber<? super Response> subscriber) {
+        final long startNanos = System.nanoTime();
+        final AtomicBoolean released = new AtomicBoolean();
+        final Runnable releaseOnce = () -> {
+            if (released.compareAndSet(false, true)) {
+                release();
+            }
+        };
+        call
+                .map(response -> {
+                    int code = response.code();
+                    onSample(System.nanoTime() - startNanos, code == 429 || code == 503);
+                    return response.newBuilder()
+                            .body(new SlotReleasingBody(response.body(), releaseOnce))
+                            .build();
+                })
+                .doOnError(e -> {
+                    if (released.compareAndSet(false, true)) {
+                        if (e.getCause() instanceof IOException) {
+                            onSample(System.nanoTime() - startNanos, true);
+                        }
+                        release();
+                    }
+                })
+                .doOnUnsubscribe(releaseOnce::run)
+                .unsafeSubscribe(Subscribers.wrap(subscriber));
+    }
+
+    private void onSample(final long rttNanos, final boolean dropped) {
+        if (!policy.isAdaptive()) {
+            return;
+        }
+        if (samples.incrementAndGet() % MIN_RTT_RESET_SAMPLES == 0) {
+            minRttNanos.set(rttNanos);
+        }
+        long minRtt = minRttNanos.accumulateAndGet(rttNanos, Math::min);
+        boolean congested = dropped || rttNanos > minRtt * policy.getLatencyTolerance();
+        long currentBits;
+        double current;
+        double next;
+        do {
+            currentBits = limit.get();
+            current = Double.longBitsToDouble(currentBits);
+            if (congested) {
+                next = Math.max(policy.getMinLimit(), current * 0.9);
+            } else if (inFlight.get() * 2 >= current) {
+                next = Math.min(policy.getMaxLimit(), current + 1 / current);
+            } else {
+                return;
+            }
+        } while (!limit.compareAndSet(currentBits, Double.doubleToLongBits(next)));
+        if ((int) next != (int) current) {
+            listener.onLimitChanged(group, (int) next);
+        }
+    }
+
+    /**
+     * Response body that frees the slot of its request once it has been read to the end or closed.
+     */
+    private static class SlotReleasingBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        SlotReleasingBody(final ResponseBody delegate, final Runnable release) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read == -1) {
+                        release.run();
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    private class Waiter {
+
+        private final Observable<Response> call;
+        private final Subscriber<? super Response> subscriber;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Waiter(final Observable<Response> call, final Subscriber<? super Response> subscriber) {
+            this.call = call;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * @return false if the request was unsubscribed while it was queued, in which case the slot is not used
+         */
+        boolean start() {
+            if (!claimed.compareAndSet(false, true)) {
+                return false;
+            }
+            queued.decrementAndGet();
+            Scheduler.Worker worker = waiterScheduler.createWorker();
+            worker.schedule(() -> {
+                try {
+                    run(call, subscriber);
+                } finally {
+                    worker.unsubscribe();
+                }
+            });
+            return true;
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                queued.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Response;
+import rx.Observable;
+
+/**
+ * Concurrency limiters of a client: a single one for the whole client, or one per endpoint created on first use. Once
+ * the registry of limiters is full, endpoints without a limiter of their own share one.
+ */
+class ConcurrencyLimiters {
+
+    private static final String CLIENT_GROUP = "client";
+    private static final String OTHER_ENDPOINTS = "*";
+
+    private final ConcurrencyLimit policy;
+    private final EndpointRegistry<ConcurrencyLimiter> limiters;
+
+    ConcurrencyLimiters(final ConcurrencyLimit policy, final RequestListener listener, final boolean asyncExecution) {
+        this.policy = policy;
+        this.limiters = new EndpointRegistry<>(group -> new ConcurrencyLimiter(group, policy, listener, asyncExecution));
+    }
+
+    /**
+     * Makes the call wait for, or be rejected when there is no, free slot in the limiter of its endpoint. The call,
+     * and with it client.newCall, is only subscribed to once a slot has been acquired. Waiting calls are started in
+     * order of priority.
+     */
+    Observable<Response> limit(final String endpoint, final RequestPriority priority, final Observable<Response> call) {
+        if (!policy.isEnabled()) {
+            return call;
+        }
+        return limiter(policy.isPerEndpoint() ? EndpointRegistry.path(endpoint) : CLIENT_GROUP).limit(call, priority);
+    }
+
+    ConcurrencyLimiter limiter(final String group) {
+        return limiters.get(group, OTHER_ENDPOINTS);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.time.Duration;
+
+/**
+ * Signals that a request, including its retries and the reading of its response body, did not complete before its
+ * deadline. The call was cancelled when the deadline expired.
+ */
+public class DeadlineExceededException extends ServiceException {
+
+    private final String endpoint;
+    private final Duration budget;
+
+    public DeadlineExceededException(final String endpoint, final Duration budget) {
+        super((String) null);
+        this.endpoint = endpoint;
+        this.budget = budget;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Request to " + endpoint + " did not complete within " + budget.toMillis() + "ms";
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return time the request had left when it was subscribed to
+     */
+    public Duration getBudget() {
+        return budget;
+    }
+}
@@ -27,37 +27,63 @@ package com.shekhargulati.reactivex.rxokhttp;
 import com.shekhargulati.reactivex.rxokhttp.functions.*;
 import okhttp3.*;
 import okio.Buffer;
-import okio.BufferedSink;
 import okio.BufferedSource;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Subscriber;
+import rx.subscriptions.Subscriptions;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.util.Collection;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
 class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
-    private final Logger logger = LoggerFactory.getLogger(DefaultOkHttpBasedRxHttpClient.class);
-
     public static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
     public static final MediaType OCTET = MediaType.parse("application/octet-stream; charset=utf-8");
     public static final MediaType TAR = MediaType.parse("application/tar; charset=utf-8");
+    private static final RequestBody EMPTY_REQUEST = RequestBody.create(null, new byte[0]);
+    private static final HttpHeaders RAW_STREAM_HEADERS = HttpHeaders.of("Accept", "application/vnd.docker.raw-stream");
 
     private final OkHttpClient client;
-    private final String baseApiUrl;
-    private final HttpUrlFunction toHttpUrl;
+    private final HttpUrl baseUrl;
+    private final HttpHeaders defaultHeaders;
+    private final HttpHeaders jsonHeaders;
+    private final ClientConfig clientConfig;
+    private final SingleFlight<List<Object>, SharedResponse> singleFlight = new SingleFlight<>();
+    private final RetryPolicy retryPolicy;
+    private final RetryBudget retryBudget;
+    private final CircuitBreakers circuitBreakers;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final RequestHedger requestHedger;
+    private final RequestDeadline defaultDeadline;
+
+    DefaultOkHttpBasedRxHttpClient(final HttpUrl baseUrl, final OkHttpClient client) {
+        this(baseUrl, client, ClientConfig.defaultConfig());
+    }
+
+    DefaultOkHttpBasedRxHttpClient(final HttpUrl baseUrl, final OkHttpClient client, final ClientConfig clientConfig) {
+        this.baseUrl = baseUrl;
+        this.defaultHeaders = clientConfig.getDefaultHeaders();
+        this.jsonHeaders = defaultHeaders.with("Content-Type", "application/json");
+        this.client = MemoryResponseCache.install(RequestInstrumentation.instrument(client, clientConfig.getRequestListener()), clientConfig);
+        this.clientConfig = clientConfig;
+        this.retryPolicy = clientConfig.getRetryPolicy();
+        this.retryBudget = new RetryBudget(retryPolicy.getBudgetRatio());
+        this.circuitBreakers = new CircuitBreakers(clientConfig.getCircuitBreakerPolicy());
+        this.concurrencyLimiters = new ConcurrencyLimiters(clientConfig.getConcurrencyLimit(), clientConfig.getRequestListener(), clientConfig.isAsyncExecution());
+        this.requestHedger = new RequestHedger(clientConfig.getHedgePolicy());
+        this.defaultDeadline = new RequestDeadline(clientConfig.getCallTimeout(), null);
+    }
 
-    DefaultOkHttpBasedRxHttpClient(final String baseApiUrl, final OkHttpClient client, HttpUrlFunction toHttpUrl) {
-        this.baseApiUrl = baseApiUrl;
-        this.client = client;
-        this.toHttpUrl = toHttpUrl;
+    @Override
+    public RequestBuilder request() {
+        return new RequestBuilder(this);
     }
 
     @Override
@@ -87,36 +113,23 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public <R> Observable<R> get(final String endpoint, final Map<String, String> headers, final StringResponseToCollectionTransformer<R> transformer, QueryParameter... queryParameters) {
-        Optional.ofNullable(endpoint).map(String::trim).filter(ep -> ep.length() > 0).orElseThrow(() -> new IllegalArgumentException("endpoint can't be null or empty."));
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpGetRequest(fullEndpointUrl, headers);
-                if (response.isSuccessful()) {
-                    try (ResponseBody body = response.body()) {
-                        Collection<R> collection = transformer.apply(body.string());
-                        collection.forEach(e -> {
-                            if (subscriber.isUnsubscribed()) {
-                                return;
-                            }
-                            subscriber.onNext(e);
-                        });
-                        subscriber.onCompleted();
-                    }
-                } else if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    subscriber.onCompleted();
-                } else {
-                    if (!subscriber.isUnsubscribed()) {
-                        subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                    }
-                }
-            } catch (IOException e) {
-                logger.error("Encountered error while making HTTP GET call to '{}'", fullEndpointUrl, e);
-                if (!subscriber.isUnsubscribed()) {
-                    subscriber.onError(new ServiceException(e));
-                }
-            }
-        });
+        return get(request().get(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters), transformer);
+    }
+
+    @Override
+    public <R> Observable<R> get(final EndpointTemplate endpoint, final Map<String, ?> pathVariables, final Map<String, String> headers, final StringResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return get(request().get(endpoint).pathVariables(pathVariables).headers(HttpHeaders.of(headers)).query(queryParameters), transformer.toCollectionTransformer());
+    }
+
+    private <R> Observable<R> get(final RequestBuilder builder, final StringResponseToCollectionTransformer<R> transformer) {
+        return builder.retrieve().flatMap(body -> Observable.from(transformer.apply(body)));
+    }
+
+    @Override
+    public <R> Observable<R> getJsonArrayStream(final String endpoint, final Map<String, String> headers, final StringResponseTransformer<R> elementTransformer, QueryParameter... queryParameters) {
+        return Observable.defer(() -> request().get(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters)
+                .stream(new JsonArrayReader()::readElement))
+                .map(elementTransformer::apply);
     }
 
     @Override
@@ -126,28 +139,16 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public <T> Observable<T> getResponseStream(final String endpoint, final Map<String, String> headers, final StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpGetRequest(fullEndpointUrl, headers);
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    try (ResponseBody body = response.body()) {
-                        BufferedSource source = body.source();
-                        while (!source.exhausted() && !subscriber.isUnsubscribed()) {
-                            subscriber.onNext(transformer.apply(source.buffer().readUtf8()));
-                        }
-                        subscriber.onCompleted();
-                    }
-                } else if (response.isSuccessful()) {
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (IOException e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return request().get(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters)
+                .stream(source -> source.buffer().readUtf8())
+                .map(transformer::apply);
+    }
+
+    @Override
+    public <T> Observable<T> getResponseStream(final String endpoint, final Map<String, String> headers, final Delimiter delimiter, final StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
+        return request().get(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters)
+                .stream(delimiter)
+                .map(transformer::apply);
     }
 
     @Override
@@ -157,28 +158,14 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public Observable<Buffer> getResponseBufferStream(final String endpoint, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpGetRequest(fullEndpointUrl);
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    try (ResponseBody body = response.body()) {
-                        BufferedSource source = body.source();
-                        while (!source.exhausted() && !subscriber.isUnsubscribed()) {
-                            subscriber.onNext(source.buffer());
-                        }
-                        subscriber.onCompleted();
-                    }
-                } else if (response.isSuccessful()) {
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (IOException e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return request().get(endpoint).query(queryParameters)
+                .stream(ResponseBodyOnSubscribe.bufferedChunk());
+    }
+
+    @Override
+    public Observable<StreamFrame> getResponseFrameStream(final String endpoint, final Map<String, String> headers, QueryParameter... queryParameters) {
+        return request().get(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters)
+                .stream(StreamFrame::read);
     }
 
     @Override
@@ -193,21 +180,7 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public <R> Observable<R> get(final String endpoint, final ResponseTransformer<R> transformer, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpGetRequest(fullEndpointUrl);
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    subscriber.onNext(transformer.apply(response));
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (IOException e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return request().get(endpoint).query(queryParameters).retrieve(transformer);
     }
 
     @Override
@@ -237,7 +210,7 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public <R> Observable<R> post(String endpoint, Map<String, String> headers, ResponseBodyTransformer<R> bodyTransformer, QueryParameter... queryParameters) {
-        return post(endpoint, EMPTY_BODY, bodyTransformer, queryParameters);
+        return post(endpoint, headers, EMPTY_BODY, ResponseTransformer.fromBody(bodyTransformer), queryParameters);
     }
 
     @Override
@@ -252,21 +225,12 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public <R> Observable<R> post(String endpoint, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpPostRequest(fullEndpointUrl, headers, postBody);
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    subscriber.onNext(transformer.apply(response));
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (IOException e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return request().post(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters).body(postBody).retrieve(transformer);
+    }
+
+    @Override
+    public <R> Observable<R> post(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return request().post(endpoint).pathVariables(pathVariables).headers(HttpHeaders.of(headers)).query(queryParameters).body(postBody).retrieve(transformer);
     }
 
     @Override
@@ -286,52 +250,12 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public Observable<String> postAndReceiveResponse(final String endpoint, Map<String, String> headers, final String postBody, Predicate<String> errorChecker, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                RequestBody requestBody = new RequestBody() {
-                    @Override
-                    public MediaType contentType() {
-                        return OCTET;
-                    }
+        return postAndReceiveResponse(endpoint, headers, postBody, source -> source.buffer().readUtf8(), errorChecker, queryParameters);
+    }
 
-                    @Override
-                    public void writeTo(BufferedSink sink) throws IOException {
-                        logger.info("inside request body");
-                    }
-                };
-                Request.Builder requestBuilder = new Request.Builder()
-                        .header("Content-Type", "application/json");
-                Request postRequest = requestBuilder
-                        .url(fullEndpointUrl)
-                        .headers(Headers.of(headers))
-                        .post(requestBody)
-                        .build();
-                logger.info("Making POST request to {}", fullEndpointUrl);
-                Call call = client.newCall(postRequest);
-                Response response = call.execute();
-                logger.debug("Received response with code '{}' and headers '{}'", response.code(), response.headers());
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    try (ResponseBody body = response.body()) {
-                        BufferedSource source = body.source();
-                        while (!source.exhausted() && !subscriber.isUnsubscribed()) {
-                            final String responseLine = source.buffer().readUtf8();
-                            if (!errorChecker.test(responseLine)) {
-                                subscriber.onNext(responseLine);
-                            } else {
-                                subscriber.onError(new StreamResponseException(responseLine));
-                            }
-                        }
-                        subscriber.onCompleted();
-                    }
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (Exception e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+    @Override
+    public Observable<String> postAndReceiveResponse(final String endpoint, Map<String, String> headers, final String postBody, final Delimiter delimiter, Predicate<String> errorChecker, QueryParameter... queryParameters) {
+        return postAndReceiveResponse(endpoint, headers, postBody, delimiter::readRecord, errorChecker, queryParameters);
     }
 
     @Override
@@ -341,97 +265,32 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public Observable<String> postAndReceiveStream(final String endpoint, final Map<String, String> headers, final String postBody, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                RequestBody requestBody = RequestBody.create(JSON, postBody);
-                Request.Builder requestBuilder = new Request.Builder()
-                        .header("Content-Type", "application/json")
-                        .header("Accept", "application/vnd.docker.raw-stream");
-                Request postRequest = requestBuilder
-                        .url(fullEndpointUrl)
-                        .headers(Headers.of(headers))
-                        .post(requestBody)
-                        .build();
-                logger.info("Making POST request to {}", fullEndpointUrl);
-                Call call = client.newCall(postRequest);
-                Response response = call.execute();
-                logger.debug("Received response with code '{}' and headers '{}'", response.code(), response.headers());
-                if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                    try (ResponseBody body = response.body()) {
-                        BufferedSource source = body.source();
-                        while (!source.exhausted() && !subscriber.isUnsubscribed()) {
-                            final String responseLine = source.buffer().readUtf8();
-                            subscriber.onNext(responseLine);
-                        }
-                        subscriber.onCompleted();
-                    }
-                } else if (response.isSuccessful()) {
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (Exception e) {
-                logger.error("Encountered error while making {} call", endpoint, e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return rawStreamPost(endpoint, headers, postBody, queryParameters)
+                .stream(source -> source.buffer().readUtf8());
     }
 
     @Override
-    public <R> Observable<R> postTarStream(final String endpoint, final Path pathToTarArchive, final BufferTransformer<R> transformer) {
+    public Observable<String> postAndReceiveStream(final String endpoint, final Map<String, String> headers, final String postBody, final Delimiter delimiter, QueryParameter... queryParameters) {
+        return rawStreamPost(endpoint, headers, postBody, queryParameters)
+                .stream(delimiter);
+    }
 
-        final RequestBody requestBody = createTarRequestBody(pathToTarArchive);
-
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint);
-        return Observable.create(subscriber ->
-                {
-                    try {
-                        Response response = makeHttpPostRequest(fullEndpointUrl, Collections.emptyMap(), requestBody);
-                        if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                            try (ResponseBody body = response.body()) {
-                                BufferedSource source = body.source();
-                                while (!source.exhausted() && !subscriber.isUnsubscribed()) {
-                                    subscriber.onNext(transformer.apply(source.buffer()));
-                                }
-                                subscriber.onCompleted();
-                            }
-                        } else if (response.isSuccessful()) {
-                            subscriber.onCompleted();
-                        } else {
-                            subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                        }
-                    } catch (IOException e) {
-                        logger.error("Encountered error while making {} call", endpoint, e);
-                        subscriber.onError(new ServiceException(e));
-                    }
-                }
-        );
+    @Override
+    public Observable<StreamFrame> postAndReceiveFrameStream(final String endpoint, final Map<String, String> headers, final String postBody, QueryParameter... queryParameters) {
+        return rawStreamPost(endpoint, headers, postBody, queryParameters)
+                .stream(StreamFrame::read);
+    }
+
+    @Override
+    public <R> Observable<R> postTarStream(final String endpoint, final Path pathToTarArchive, final BufferTransformer<R> transformer) {
+        return request().post(endpoint).body(createTarRequestBody(pathToTarArchive))
+                .stream(ResponseBodyOnSubscribe.bufferedChunk())
+                .map(transformer::apply);
     }
 
     @Override
     public <R> Observable<R> postTarStream(String endpoint, Path pathToTarArchive, ResponseTransformer<R> transformer) {
-        final RequestBody requestBody = createTarRequestBody(pathToTarArchive);
-
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint);
-        return Observable.create(subscriber ->
-                {
-                    try {
-                        Response response = makeHttpPostRequest(fullEndpointUrl, Collections.emptyMap(), requestBody);
-                        if (response.isSuccessful() && !subscriber.isUnsubscribed()) {
-                            subscriber.onNext(transformer.apply(response));
-                            subscriber.onCompleted();
-                        } else if (response.isSuccessful()) {
-                            subscriber.onCompleted();
-                        } else {
-                            subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                        }
-                    } catch (IOException e) {
-                        logger.error("Encountered error while making {} call", endpoint, e);
-                        subscriber.onError(new ServiceException(e));
-                    }
-                }
-        );
+        return request().post(endpoint).body(createTarRequestBody(pathToTarArchive)).retrieve(transformer);
     }
 
     @Override
@@ -439,6 +298,23 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
         return postTarStream(endpoint, pathToTarArchive, ResponseTransformer.httpStatus());
     }
 
+    @Override
+    public <R> Observable<R> postTarStream(final String endpoint, final Path directory, final TarOptions options, final BufferTransformer<R> transformer) {
+        return request().post(endpoint).body(new TarRequestBody(directory, TAR, options))
+                .stream(ResponseBodyOnSubscribe.bufferedChunk())
+                .map(transformer::apply);
+    }
+
+    @Override
+    public <R> Observable<R> postTarStream(final String endpoint, final Path directory, final TarOptions options, final ResponseTransformer<R> transformer) {
+        return request().post(endpoint).body(new TarRequestBody(directory, TAR, options)).retrieve(transformer);
+    }
+
+    @Override
+    public Observable<HttpStatus> postTarStream(final String endpoint, final Path directory, final TarOptions options) {
+        return postTarStream(endpoint, directory, options, ResponseTransformer.httpStatus());
+    }
+
     @Override
     public Observable<HttpStatus> delete(final String endpoint, QueryParameter... queryParameters) {
         return delete(endpoint, Collections.emptyMap(), queryParameters);
@@ -446,21 +322,12 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public Observable<HttpStatus> delete(String endpoint, Map<String, String> headers, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
-        return Observable.create(subscriber -> {
-            try {
-                Response response = makeHttpDeleteRequest(fullEndpointUrl, headers);
-                if (response.isSuccessful()) {
-                    subscriber.onNext(HttpStatus.of(response.code(), response.message()));
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
-                }
-            } catch (IOException e) {
-                logger.error(String.format("Encountered error while making %s call", endpoint), e);
-                subscriber.onError(new ServiceException(e));
-            }
-        });
+        return request().delete(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters).retrieve(ResponseTransformer.httpStatus());
+    }
+
+    @Override
+    public Observable<HttpStatus> delete(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, QueryParameter... queryParameters) {
+        return request().delete(endpoint).pathVariables(pathVariables).headers(HttpHeaders.of(headers)).query(queryParameters).retrieve(ResponseTransformer.httpStatus());
     }
 
     @Override
@@ -470,101 +337,324 @@ class DefaultOkHttpBasedRxHttpClient implements RxHttpClient {
 
     @Override
     public Observable<Response> head(String endpoint, Map<String, String> headers, QueryParameter... queryParameters) {
-        final HttpUrl fullEndpointUrl = toHttpUrl.apply(baseApiUrl, endpoint, queryParameters);
+        return request().head(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters).retrieve(ResponseTransformer.identity());
+    }
+
+    /**
+     * Executes the request and decodes its single response. Identical GET requests are coalesced when the ClientConfig
+     * asks for it; the deadline of every caller is applied to its own subscription of the shared execution.
+     */
+    <R> Observable<R> retrieve(final RequestBuilder builder, final ResponseTransformer<R> transformer) {
+        return deadline(builder).apply(builder.endpoint(), coalesce(builder, exchange(builder)).flatMap(response -> transform(response, transformer)));
+    }
+
+    <T> Observable<T> stream(final RequestBuilder builder, final IoFunction<BufferedSource, T> reader) {
+        return deadline(builder).apply(builder.endpoint(), exchange(builder).concatMap(response -> bodyStream(response, reader)));
+    }
+
+    private RequestDeadline deadline(final RequestBuilder builder) {
+        if (builder.deadlineTimeout() == null && builder.deadline() == null) {
+            return defaultDeadline;
+        }
+        return new RequestDeadline(builder.deadlineTimeout(), builder.deadline());
+    }
+
+    /**
+     * Shares a single execution of a GET request between identical concurrent requests, when the ClientConfig asks
+     * for it. The shared response has its body read into memory so that every subscriber decodes its own copy.
+     * Requests are only identical with the same timeout and cache directives, as both change how the call is made;
+     * deadlines are left out because retrieve() applies them to each subscription of the shared execution.
+     */
+    private Observable<Response> coalesce(final RequestBuilder builder, final Observable<Response> exchange) {
+        if (!clientConfig.isCoalesceGetRequests() || !"GET".equals(builder.method())) {
+            return exchange;
+        }
+        final List<Object> key = Arrays.asList(builder.url(baseUrl), headers(builder), builder.timeout(), String.valueOf(builder.cacheControl()));
+        return singleFlight.execute(key, () -> exchange.flatMap(SharedResponse::read)).map(SharedResponse::copy);
+    }
+
+    /**
+     * Builds the request described by the builder and executes it with the timeout and priority of the builder. The
+     * request is built right away, so changing the builder afterwards has no effect on the returned Observable.
+     */
+    private Observable<Response> exchange(final RequestBuilder builder) {
+        final String method = builder.method();
+        RequestBody body = builder.body();
+        if (body == null && ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method))) {
+            body = RequestBody.create(JSON, EMPTY_BODY);
+        } else if (body == null && "DELETE".equals(method)) {
+            body = EMPTY_REQUEST;
+        }
+        final Request.Builder request = new Request.Builder()
+                .url(builder.url(baseUrl))
+                .headers(headers(builder).toHeaders())
+                .method(method, body);
+        if (builder.cacheControl() != null) {
+            request.cacheControl(builder.cacheControl());
+        }
+        return execute(builder.endpoint(), request.build(), clientFor(builder.timeout()), builder.priority());
+    }
+
+    /**
+     * @return the headers of the builder over the default headers of the client. A request given a body is sent with
+     * the Content-Type of that body, other requests but GETs with application/json.
+     */
+    private HttpHeaders headers(final RequestBuilder builder) {
+        return (builder.body() != null || "GET".equals(builder.method()) ? defaultHeaders : jsonHeaders).withAll(builder.headers());
+    }
+
+    private OkHttpClient clientFor(final Duration timeout) {
+        if (timeout == null) {
+            return client;
+        }
+        final long timeoutMillis = OkHttpBasedRxHttpClient.timeoutMillis(timeout);
+        return client.newBuilder()
+                .connectTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .readTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .writeTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Executes the request and emits the single Response received for it, retrying it according to the RetryPolicy of
+     * the ClientConfig when it fails with an I/O error or a retryable status code. Every attempt has to acquire a slot
+     * of the concurrency limit and is guarded by the circuit breaker of its host or endpoint. GET requests are hedged
+     * when the ClientConfig has a HedgePolicy.
+     */
+    private Observable<Response> execute(final String endpoint, final Request request, final OkHttpClient client, final RequestPriority priority) {
+        final Observable<Response> attempt = concurrencyLimiters.limit(endpoint, priority, circuitBreakers.guard(endpoint, request, call(endpoint, request, client)));
+        final Observable<Response> call = "GET".equals(request.method()) ? requestHedger.hedge(endpoint, attempt) : attempt;
+        if (!retryPolicy.isRetryable(request.method())) {
+            return call;
+        }
+        return Observable.defer(() -> {
+            retryBudget.deposit();
+            return withRetries(call, 1);
+        });
+    }
+
+    private Observable<Response> withRetries(final Observable<Response> call, final int attempt) {
+        return call
+                .onErrorResumeNext(e -> {
+                    if (attempt < retryPolicy.getMaxAttempts() && isIoFailure(e) && retryBudget.tryWithdraw()) {
+                        return retryAfter(call, attempt, retryPolicy.backoffMillis(attempt));
+                    }
+                    return Observable.<Response>error(e);
+                })
+                .concatMap(response -> {
+                    if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(response.code())) {
+                        return Observable.just(response);
+                    }
+                    long retryAfter = RetryPolicy.retryAfterMillis(response);
+                    if (retryAfter > retryPolicy.getMaxBackoff().toMillis() || !retryBudget.tryWithdraw()) {
+                        return Observable.just(response);
+                    }
+                    response.body().close();
+                    return retryAfter(call, attempt, retryAfter >= 0 ? retryAfter : retryPolicy.backoffMillis(attempt));
+                });
+    }
+
+    /**
+     * call() reports the IOException of a failed call, whether it was executed or enqueued, as the cause of a
+     * ServiceException. Subclasses are failures of the client itself, such as an open circuit or an expired deadline.
+     */
+    private static boolean isIoFailure(final Throwable e) {
+        return e.getClass() == ServiceException.class && e.getCause() instanceof IOException;
+    }
+
+    private Observable<Response> retryAfter(final Observable<Response> call, final int attempt, final long delayMillis) {
+        return Observable.timer(delayMillis, TimeUnit.MILLISECONDS)
+                .concatMap(tick -> withRetries(call, attempt + 1));
+    }
+
+    /**
+     * Executes the request once and emits the single Response received for it. Depending on the ClientConfig the call
+     * is either executed on the subscribing thread or enqueued on OkHttp's Dispatcher, in which case the Observable is
+     * completed from the OkHttp callback thread.
+     * <p>
+     * Unsubscribing cancels the Call, whether it is still waiting for the response or its body is being read. The
+     * Observable therefore has to stay subscribed until the body has been consumed, which holds for the operators used
+     * in this class as none of them unsubscribes from its source when the source completes.
+     */
+    private Observable<Response> call(final String endpoint, final Request request, final OkHttpClient client) {
+        final RequestListener listener = clientConfig.getRequestListener();
+        final RequestTracer tracer = clientConfig.getRequestTracer();
         return Observable.create(subscriber -> {
-            Request headRequest = new Request.Builder()
-                    .header("Content-Type", "application/json")
-                    .headers(Headers.of(headers))
-                    .url(fullEndpointUrl)
-                    .head()
-                    .build();
-            logger.info("Making HEAD request to {}", fullEndpointUrl);
-            Call call = client.newCall(headRequest);
-            try {
-                Response response = call.execute();
-                if (response.isSuccessful()) {
-                    subscriber.onNext(response);
-                    subscriber.onCompleted();
-                } else {
-                    subscriber.onError(new ServiceException(String.format("Service returned %d with message %s", response.code(), response.message()), response.code(), response.message()));
+            if (subscriber.isUnsubscribed()) {
+                return;
+            }
+            final boolean traced = tracer.sample();
+            final long startNanos = traced ? System.nanoTime() : 0L;
+            if (traced) {
+                tracer.requestStarted(endpoint, request);
+            }
+            final RequestMetrics metrics;
+            final Call call;
+            if (listener == RequestListener.NONE) {
+                metrics = null;
+                call = client.newCall(request);
+            } else {
+                metrics = new RequestMetrics(endpoint, request.method(), request.url());
+                listener.onRequestStart(metrics);
+                call = client.newCall(request.newBuilder().tag(metrics).build());
+            }
+            // cancelling also aborts a read of the response body blocked on another thread. The body itself is only
+            // closed by the thread reading it, in transform() and ResponseBodyOnSubscribe, as closing it discards the
+            // unread rest; a connection whose body was consumed before the cancel is already back in the pool
+            subscriber.add(Subscriptions.create(call::cancel));
+            if (clientConfig.isAsyncExecution()) {
+                call.enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        if (traced) {
+                            tracer.requestFailed(request, e, startNanos);
+                        }
+                        onCallFailure(subscriber, metrics, e);
+                    }
+
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        if (traced) {
+                            tracer.responseReceived(request, response, startNanos);
+                        }
+                        onCallResponse(subscriber, response);
+                    }
+                });
+            } else {
+                Response response;
+                try {
+                    response = call.execute();
+                } catch (IOException e) {
+                    if (traced) {
+                        tracer.requestFailed(request, e, startNanos);
+                    }
+                    onCallFailure(subscriber, metrics, e);
+                    return;
                 }
-            } catch (IOException e) {
-                logger.error(String.format("Encountered error while making %s call", endpoint), e);
-                subscriber.onError(new ServiceException(e));
+                if (traced) {
+                    tracer.responseReceived(request, response, startNanos);
+                }
+                onCallResponse(subscriber, response);
             }
         });
     }
 
-    private Response makeHttpDeleteRequest(HttpUrl fullEndpointUrl, Map<String, String> headers) throws IOException {
-        Request deleteRequest = new Request.Builder()
-                .header("Content-Type", "application/json")
-                .headers(Headers.of(headers))
-                .url(fullEndpointUrl)
-                .delete()
-                .build();
-        logger.info("Making DELETE request to {}", fullEndpointUrl);
-        Call call = client.newCall(deleteRequest);
-        return call.execute();
+    private void onCallResponse(Subscriber<? super Response> subscriber, Response response) {
+        if (subscriber.isUnsubscribed()) {
+            response.body().close();
+            return;
+        }
+        subscriber.onNext(response);
+        subscriber.onCompleted();
+    }
+
+    private void onCallFailure(Subscriber<? super Response> subscriber, RequestMetrics metrics, IOException e) {
+        if (metrics != null) {
+            clientConfig.getRequestListener().onError(metrics, e);
+        }
+        if (!subscriber.isUnsubscribed()) {
+            subscriber.onError(new ServiceException(e));
+        }
+    }
+
+    /**
+     * Applies the transformer to a successful response. The response body is closed once the transformer returned, or
+     * failed, so transformers must not hand out anything still reading from it.
+     */
+    private <R> Observable<R> transform(final Response response, final ResponseTransformer<R> transformer) {
+        if (!response.isSuccessful()) {
+            return Observable.error(serviceException(response));
+        }
+        try {
+            return Observable.just(transformer.apply(response));
+        } catch (IOException e) {
+            return Observable.error(new ServiceException(e));
+        } finally {
+            response.body().close();
+        }
+    }
+
+    /**
+     * Emits the values read from the body of a successful response. ResponseBodyOnSubscribe closes the body when the
+     * stream terminates or is unsubscribed.
+     */
+    private <R> Observable<R> bodyStream(final Response response, final IoFunction<BufferedSource, R> reader) {
+        if (!response.isSuccessful()) {
+            return Observable.error(serviceException(response));
+        }
+        return Observable.create(new ResponseBodyOnSubscribe<>(response, reader));
+    }
+
+    /**
+     * Creates the exception for an unsuccessful response and closes its body, capturing up to maxErrorBodySize bytes
+     * of it in the exception.
+     */
+    private ServiceException serviceException(final Response response) {
+        String errorBody = null;
+        try (ResponseBody body = response.body()) {
+            long maxErrorBodySize = clientConfig.getMaxErrorBodySize();
+            if (maxErrorBodySize > 0) {
+                BufferedSource source = body.source();
+                source.request(maxErrorBodySize);
+                errorBody = source.buffer().readUtf8(Math.min(maxErrorBodySize, source.buffer().size()));
+            }
+        } catch (IOException e) {
+            // the status is all there is to report
+        }
+        return new ServiceException(response.code(), response.message(), errorBody);
     }
 
-
-    private Response makeHttpGetRequest(final HttpUrl fullEndpointUrl) throws IOException {
-        return makeHttpGetRequest(fullEndpointUrl, Collections.emptyMap());
+    private Observable<String> postAndReceiveResponse(final String endpoint, final Map<String, String> headers, final String postBody, final IoFunction<BufferedSource, String> reader, final Predicate<String> errorChecker, final QueryParameter... queryParameters) {
+        final RequestBody requestBody = EMPTY_BODY.equals(postBody) ? RequestBody.create(OCTET, EMPTY_BODY) : RequestBody.create(JSON, postBody);
+        return request().post(endpoint).headers(HttpHeaders.of(headers)).query(queryParameters).body(requestBody)
+                .stream(reader)
+                .concatMap(responseLine -> errorChecker.test(responseLine) ? Observable.<String>error(new StreamResponseException(responseLine)) : Observable.just(responseLine));
     }
 
-    private Response makeHttpGetRequest(final HttpUrl fullEndpointUrl, final Map<String, String> headers) throws IOException {
-        Request getRequest = new Request.Builder()
-                .url(fullEndpointUrl)
-                .headers(Headers.of(headers))
-                .build();
-        logger.info("Making GET request to {}", fullEndpointUrl);
-        Call call = client.newCall(getRequest);
-        Response response = call.execute();
-        logger.debug("Received response with code '{}' and headers '{}'", response.code(), response.headers());
-        return response;
+    private RequestBuilder rawStreamPost(final String endpoint, final Map<String, String> headers, final String postBody, final QueryParameter... queryParameters) {
+        return request().post(endpoint).headers(RAW_STREAM_HEADERS).headers(HttpHeaders.of(headers)).query(queryParameters).body(postBody);
     }
 
-
-    private Response makeHttpPostRequest(HttpUrl fullEndpointUrl, Map<String, String> headers, String body) throws IOException {
-        RequestBody requestBody = RequestBody.create(JSON, body);
-        return makeHttpPostRequest(fullEndpointUrl, headers, requestBody);
+    /**
+     * Streams the archive straight from the file with okio, a segment at a time, and reports the file size as content
+     * length so the request is not sent chunked.
+     */
+    private RequestBody createTarRequestBody(final Path pathToTarArchive) {
+        return RequestBody.create(TAR, pathToTarArchive.toFile());
     }
 
-    private Response makeHttpPostRequest(final HttpUrl fullEndpointUrl, Map<String, String> headers, final RequestBody requestBody) throws IOException {
-        Request getRequest = new Request.Builder()
-                .header("Content-Type", "application/json")
-                .headers(Headers.of(headers))
-                .url(fullEndpointUrl)
-                .post(requestBody)
-                .build();
-        logger.info("Making POST request to {}", fullEndpointUrl);
-        Call call = client.newCall(getRequest);
-        return call.execute();
+    OkHttpClient getClient() {
+        return client;
     }
 
-    private RequestBody createTarRequestBody(final Path pathToTarArchive) {
-        return new RequestBody() {
-            @Override
-            public MediaType contentType() {
-                return TAR;
-            }
+    /**
+     * Response of a coalesced request with its body held in memory.
+     */
+    private static final class SharedResponse {
 
-            @Override
-            public void writeTo(BufferedSink sink) throws IOException {
-                try (FileInputStream fin = new FileInputStream(pathToTarArchive.toFile())) {
-                    final byte[] buffer = new byte[1024];
-                    int n;
-                    while (-1 != (n = fin.read(buffer))) {
-                        sink.write(buffer, 0, n);
-                    }
-                } catch (IOException e) {
-                    throw new RuntimeException(String.format("Unable to read tar at %s", pathToTarArchive.toAbsolutePath()), e);
-                }
+        private final Response response;
+        private final MediaType contentType;
+        private final byte[] body;
+
+        private SharedResponse(final Response response, final MediaType contentType, final byte[] body) {
+            this.response = response;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Observable<SharedResponse> read(final Response response) {
+            try (ResponseBody body = response.body()) {
+                return Observable.just(new SharedResponse(response, body.contentType(), body.bytes()));
+            } catch (IOException e) {
+                return Observable.error(new ServiceException(e));
             }
-        };
-    }
+        }
 
-    OkHttpClient getClient() {
-        return client;
+        /**
+         * @return the response with a body of its own
+         */
+        Response copy() {
+            return response.newBuilder().body(ResponseBody.create(contentType, body)).build();
+        }
     }
-}
\ No newline at end of file
+}
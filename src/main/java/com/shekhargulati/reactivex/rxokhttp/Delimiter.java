@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okio.BufferedSource;
+import okio.ByteString;
+
+import java.io.IOException;
+
+/**
+ * Delimiter used to split a streamed response body into records. Records are located with indexOf directly on the
+ * BufferedSource so only the bytes of a single record are ever decoded into a String.
+ */
+public class Delimiter {
+
+    private static final ByteString LF = ByteString.encodeUtf8("\n");
+    private static final byte CR = '\r';
+
+    /**
+     * Splits on '\n', dropping a preceding '\r' so both LF and CRLF terminated lines are supported.
+     */
+    public static final Delimiter NEWLINE = new Delimiter(LF);
+
+    private final ByteString bytes;
+
+    private Delimiter(final ByteString bytes) {
+        this.bytes = bytes;
+    }
+
+    public static Delimiter of(final String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("delimiter can't be null or empty");
+        }
+        return of(ByteString.encodeUtf8(delimiter));
+    }
+
+    public static Delimiter of(final ByteString delimiter) {
+        if (delimiter == null || delimiter.size() == 0) {
+            throw new IllegalArgumentException("delimiter can't be null or empty");
+        }
+        return LF.equals(delimiter) ? NEWLINE : new Delimiter(delimiter);
+    }
+
+    public ByteString bytes() {
+        return bytes;
+    }
+
+    /**
+     * Reads the next record from the source. The last record of a stream does not need to be followed by the
+     * delimiter.
+     *
+     * @param source source positioned at the start of a record
+     * @return record without its delimiter
+     * @throws IOException if reading from the source fails
+     */
+    String readRecord(final BufferedSource source) throws IOException {
+        long index = source.indexOf(bytes);
+        if (index == -1) {
+            return source.readUtf8();
+        }
+        long recordLength = index;
+        if (this == NEWLINE && index > 0 && source.buffer().getByte(index - 1) == CR) {
+            recordLength--;
+        }
+        String record = source.readUtf8(recordLength);
+        source.skip(index - recordLength + bytes.size());
+        return record;
+    }
+
+    @Override
+    public String toString() {
+        return "Delimiter{" +
+                "bytes=" + bytes.hex() +
+                '}';
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RequestListener that keeps a LatencyHistogram of the total request latency and an error count per endpoint. Keys
+ * are the HTTP method followed by the endpoint as it was passed to the client without its query string, e.g.
+ * {@code GET containers/json}. Requests made to an EndpointTemplate are keyed on the template. Once maxEndpoints keys
+ * are kept, requests to further endpoints are counted under their method followed by {@code *}, e.g. {@code GET *}.
+ */
+public class EndpointLatencyListener implements RequestListener {
+
+    private final EndpointRegistry<LatencyHistogram> histograms;
+    private final EndpointRegistry<LongAdder> errors;
+
+    public EndpointLatencyListener() {
+        this(EndpointRegistry.MAX_ENDPOINTS);
+    }
+
+    /**
+     * @param maxEndpoints number of keys after which requests to further endpoints share one key per method
+     */
+    public EndpointLatencyListener(final int maxEndpoints) {
+        this.histograms = new EndpointRegistry<>(key -> new LatencyHistogram(), maxEndpoints);
+        this.errors = new EndpointRegistry<>(key -> new LongAdder(), maxEndpoints);
+    }
+
+    @Override
+    public void onBodyComplete(final RequestMetrics metrics) {
+        histograms.get(key(metrics.method(), metrics.endpoint()), overflowKey(metrics.method()))
+                .record(TimeUnit.NANOSECONDS.toMicros(metrics.completeNanos()));
+    }
+
+    @Override
+    public void onError(final RequestMetrics metrics, final Throwable error) {
+        errors.get(key(metrics.method(), metrics.endpoint()), overflowKey(metrics.method())).increment();
+    }
+
+    public LatencyHistogram histogram(final String method, final String endpoint) {
+        return histograms.find(key(method, endpoint));
+    }
+
+    public Map<String, LatencyHistogram> histograms() {
+        return histograms.asMap();
+    }
+
+    public long errors(final String method, final String endpoint) {
+        LongAdder counter = errors.find(key(method, endpoint));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    private static String key(final String method, final String endpoint) {
+        return method + " " + EndpointRegistry.path(endpoint);
+    }
+
+    private static String overflowKey(final String method) {
+        return method + " *";
+    }
+}
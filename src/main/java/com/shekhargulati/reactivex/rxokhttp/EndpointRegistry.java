@@ -0,0 +1,84 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Values kept per endpoint, such as circuit breakers or concurrency limiters, created on first use. An endpoint passed
+ * as a plain string rather than an EndpointTemplate may contain ids, e.g. {@code containers/3f4e/json}, so the number
+ * of entries is capped: once the cap is reached an endpoint without an entry gets the overflow entry instead of a new
+ * one. The cap is checked without locking, so it can be exceeded by a few entries under contention.
+ */
+class EndpointRegistry<V> {
+
+    static final int MAX_ENDPOINTS = 256;
+
+    private final ConcurrentHashMap<String, V> entries = new ConcurrentHashMap<>();
+    private final Function<String, V> factory;
+    private final int maxEntries;
+
+    EndpointRegistry(final Function<String, V> factory) {
+        this(factory, MAX_ENDPOINTS);
+    }
+
+    EndpointRegistry(final Function<String, V> factory, final int maxEntries) {
+        this.factory = factory;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param key         key of the endpoint
+     * @param overflowKey key of the entry shared by the endpoints that came after the cap was reached
+     */
+    V get(final String key, final String overflowKey) {
+        V value = entries.get(key);
+        if (value != null) {
+            return value;
+        }
+        return entries.computeIfAbsent(entries.size() < maxEntries ? key : overflowKey, factory);
+    }
+
+    /**
+     * @return the entry of the key, or null if it has none
+     */
+    V find(final String key) {
+        return entries.get(key);
+    }
+
+    Map<String, V> asMap() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * @return the endpoint without its query string, which is not part of the key of an endpoint
+     */
+    static String path(final String endpoint) {
+        int queryStart = endpoint.indexOf('?');
+        return queryStart < 0 ? endpoint : endpoint.substring(0, queryStart);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.HttpUrl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoint such as {@code /containers/{id}/json} parsed once into its path segments, so that making a request only
+ * appends the segments to the base url instead of formatting and reparsing the whole url. A segment written as
+ * {@code {name}} is bound to a path variable, which is encoded as a single path segment, so a value containing
+ * {@code /} or {@code ?} can't change the shape of the url. Query parameters are encoded the same way. Empty segments
+ * are dropped, except for the one after a trailing {@code /}, which is kept as servers may tell the two apart.
+ */
+public class EndpointTemplate {
+
+    private final String template;
+    private final String[] segments;
+    private final boolean[] variableSegments;
+    private final String encodedQuery;
+    private final List<String> variables;
+
+    private EndpointTemplate(final String template, final String[] segments, final boolean[] variableSegments, final String encodedQuery, final List<String> variables) {
+        this.template = template;
+        this.segments = segments;
+        this.variableSegments = variableSegments;
+        this.encodedQuery = encodedQuery;
+        this.variables = variables;
+    }
+
+    /**
+     * @param template endpoint relative to the base url, with {@code {name}} for the segments bound to path variables
+     *                 and optionally a literal query string
+     * @return parsed template
+     */
+    public static EndpointTemplate of(final String template) {
+        if (template == null || template.trim().isEmpty()) {
+            throw new IllegalArgumentException("endpoint can't be null or empty");
+        }
+        final String trimmed = template.trim();
+        final int queryStart = trimmed.indexOf('?');
+        final int pathEnd = queryStart < 0 ? trimmed.length() : queryStart;
+        final List<String> segments = new ArrayList<>();
+        final List<String> variables = new ArrayList<>();
+        final List<Boolean> variableSegments = new ArrayList<>();
+        for (String segment : split(trimmed, pathEnd)) {
+            final boolean variable = segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}';
+            if (!variable && (segment.indexOf('{') >= 0 || segment.indexOf('}') >= 0)) {
+                throw new IllegalArgumentException("path variable must be a whole segment in endpoint " + template);
+            }
+            final String name = variable ? segment.substring(1, segment.length() - 1) : segment;
+            if (variable) {
+                variables.add(name);
+            }
+            segments.add(name);
+            variableSegments.add(variable);
+        }
+        final boolean[] variableFlags = new boolean[variableSegments.size()];
+        for (int i = 0; i < variableFlags.length; i++) {
+            variableFlags[i] = variableSegments.get(i);
+        }
+        final String encodedQuery = queryStart < 0 || queryStart == trimmed.length() - 1 ? null : trimmed.substring(queryStart + 1);
+        return new EndpointTemplate(trimmed, segments.toArray(new String[segments.size()]), variableFlags, encodedQuery, Collections.unmodifiableList(variables));
+    }
+
+    public String template() {
+        return template;
+    }
+
+    /**
+     * @return names of the path variables in the order they appear in the template
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    public HttpUrl expand(final HttpUrl baseUrl, final QueryParameter... queryParameters) {
+        return expand(baseUrl, Collections.emptyMap(), queryParameters);
+    }
+
+    /**
+     * @param baseUrl         url the endpoint is relative to
+     * @param pathVariables   value of each path variable of the template
+     * @param queryParameters query parameters added after the literal query of the template, if any
+     * @return url of the endpoint
+     */
+    public HttpUrl expand(final HttpUrl baseUrl, final Map<String, ?> pathVariables, final QueryParameter... queryParameters) {
+        final HttpUrl.Builder builder = baseUrl.newBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (variableSegments[i]) {
+                final Object value = pathVariables.get(segments[i]);
+                if (value == null) {
+                    throw new IllegalArgumentException("No value for path variable " + segments[i] + " of endpoint " + template);
+                }
+                builder.addPathSegment(String.valueOf(value));
+            } else {
+                builder.addEncodedPathSegment(segments[i]);
+            }
+        }
+        if (encodedQuery != null) {
+            builder.encodedQuery(encodedQuery);
+        }
+        return addQueryParameters(builder, queryParameters).build();
+    }
+
+    /**
+     * Resolves a plain endpoint, without path variables, against the base url. Same as
+     * {@code EndpointTemplate.of(endpoint).expand(baseUrl, queryParameters)} without keeping the parsed template.
+     */
+    static HttpUrl resolve(final HttpUrl baseUrl, final String endpoint, final QueryParameter... queryParameters) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            throw new IllegalArgumentException("endpoint can't be null or empty");
+        }
+        final String trimmed = endpoint.trim();
+        final int queryStart = trimmed.indexOf('?');
+        final HttpUrl.Builder builder = baseUrl.newBuilder();
+        for (String segment : split(trimmed, queryStart < 0 ? trimmed.length() : queryStart)) {
+            builder.addEncodedPathSegment(segment);
+        }
+        if (queryStart >= 0 && queryStart < trimmed.length() - 1) {
+            builder.encodedQuery(trimmed.substring(queryStart + 1));
+        }
+        return addQueryParameters(builder, queryParameters).build();
+    }
+
+    private static List<String> split(final String endpoint, final int pathEnd) {
+        final List<String> segments = new ArrayList<>();
+        int start = 0;
+        while (start < pathEnd) {
+            int end = endpoint.indexOf('/', start);
+            if (end < 0 || end > pathEnd) {
+                end = pathEnd;
+            }
+            if (end > start) {
+                segments.add(endpoint.substring(start, end));
+            }
+            start = end + 1;
+        }
+        if (pathEnd > 0 && endpoint.charAt(pathEnd - 1) == '/') {
+            segments.add("");
+        }
+        return segments;
+    }
+
+    private static HttpUrl.Builder addQueryParameters(final HttpUrl.Builder builder, final QueryParameter... queryParameters) {
+        if (queryParameters != null) {
+            for (QueryParameter queryParameter : queryParameters) {
+                final Object value = queryParameter.value();
+                builder.addQueryParameter(queryParameter.param(), value == null ? null : String.valueOf(value));
+            }
+        }
+        return builder;
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+}
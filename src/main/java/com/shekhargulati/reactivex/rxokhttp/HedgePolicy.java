@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.time.Duration;
+
+/**
+ * Policy for hedging GET requests: when no response has arrived after the given percentile of the latencies observed
+ * for the endpoint, an identical request is sent and whichever succeeds first is used, the other one being cancelled.
+ * Endpoints are only hedged once enough latencies have been observed for them, and the number of hedged requests is
+ * limited to a fraction of all requests.
+ */
+public class HedgePolicy {
+
+    private final boolean enabled;
+    private final double percentile;
+    private final Duration minDelay;
+    private final double maxHedgeRate;
+    private final int minSamples;
+
+    private HedgePolicy(final boolean enabled, final double percentile, final Duration minDelay, final double maxHedgeRate, final int minSamples) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.maxHedgeRate = maxHedgeRate;
+        this.minSamples = minSamples;
+    }
+
+    public static HedgePolicy disabled() {
+        return new HedgePolicy(false, 95, Duration.ofMillis(5), 0.05, 100);
+    }
+
+    /**
+     * @param percentile percentile, between 0 and 100, of the observed latencies after which a request is hedged
+     * @return policy hedging at the percentile, waiting at least 5ms and hedging at most 5% of the requests
+     */
+    public static HedgePolicy atPercentile(final double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        return new HedgePolicy(true, percentile, Duration.ofMillis(5), 0.05, 100);
+    }
+
+    /**
+     * @return copy of this policy never hedging a request before the given delay
+     */
+    public HedgePolicy minDelay(final Duration minDelay) {
+        return new HedgePolicy(enabled, percentile, minDelay, maxHedgeRate, minSamples);
+    }
+
+    /**
+     * @param maxHedgeRate hedged requests allowed per request made, e.g. 0.05 allows one hedge for every 20 requests
+     * @return copy of this policy with the hedge rate cap
+     */
+    public HedgePolicy maxHedgeRate(final double maxHedgeRate) {
+        return new HedgePolicy(enabled, percentile, minDelay, maxHedgeRate, minSamples);
+    }
+
+    /**
+     * @return copy of this policy that starts hedging an endpoint once that many latencies were observed for it
+     */
+    public HedgePolicy minSamples(final int minSamples) {
+        return new HedgePolicy(enabled, percentile, minDelay, maxHedgeRate, minSamples);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public double getMaxHedgeRate() {
+        return maxHedgeRate;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Headers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable set of request headers that is validated when it is built, so it can be created once, e.g. with the
+ * authentication headers of an API, and used for any number of requests. Sets are combined with {@link #withAll},
+ * the headers of the added set replacing those of the same name.
+ */
+public class HttpHeaders {
+
+    private static final HttpHeaders EMPTY = new HttpHeaders(new Headers.Builder().build());
+
+    private final Headers headers;
+
+    private HttpHeaders(final Headers headers) {
+        this.headers = headers;
+    }
+
+    public static HttpHeaders empty() {
+        return EMPTY;
+    }
+
+    public static HttpHeaders of(final String name, final String value) {
+        return EMPTY.with(name, value);
+    }
+
+    public static HttpHeaders of(final Map<String, String> headers) {
+        return headers == null || headers.isEmpty() ? EMPTY : new HttpHeaders(Headers.of(headers));
+    }
+
+    /**
+     * @return copy of these headers with the header set to the value, replacing its previous values
+     */
+    public HttpHeaders with(final String name, final String value) {
+        return new HttpHeaders(headers.newBuilder().set(name, value).build());
+    }
+
+    /**
+     * @return copy of these headers with all the given headers, which replace the headers of the same name
+     */
+    public HttpHeaders withAll(final HttpHeaders other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        final Headers.Builder builder = headers.newBuilder();
+        for (String name : other.names()) {
+            builder.removeAll(name);
+        }
+        for (int i = 0; i < other.headers.size(); i++) {
+            builder.add(other.headers.name(i), other.headers.value(i));
+        }
+        return new HttpHeaders(builder.build());
+    }
+
+    public String get(final String name) {
+        return headers.get(name);
+    }
+
+    public List<String> values(final String name) {
+        return headers.values(name);
+    }
+
+    public Set<String> names() {
+        return headers.names();
+    }
+
+    public boolean isEmpty() {
+        return headers.size() == 0;
+    }
+
+    Headers toHeaders() {
+        return headers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HttpHeaders)) {
+            return false;
+        }
+        final Headers that = ((HttpHeaders) o).headers;
+        if (headers.size() != that.size()) {
+            return false;
+        }
+        for (int i = 0; i < headers.size(); i++) {
+            if (!headers.name(i).equals(that.name(i)) || !headers.value(i).equals(that.value(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < headers.size(); i++) {
+            result = 31 * result + headers.name(i).hashCode();
+            result = 31 * result + headers.value(i).hashCode();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return headers.toString();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okio.BufferedSource;
+import okio.ByteString;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Walks a top level JSON array on a BufferedSource and returns the JSON text of one element per call. Only the
+ * structural characters of the JSON are inspected, elements are neither parsed nor validated. A reader keeps track of
+ * its position in the array so a new instance has to be used for every response.
+ */
+class JsonArrayReader {
+
+    private static final ByteString STRUCTURAL_CHARS = ByteString.encodeUtf8("{}[],\"");
+    private static final ByteString STRING_CHARS = ByteString.encodeUtf8("\"\\");
+
+    private boolean started = false;
+    private boolean finished = false;
+
+    /**
+     * Reads the next element of the array.
+     *
+     * @param source source of the response body
+     * @return JSON text of the next element or null when the end of the array has been reached
+     * @throws IOException if reading fails or the body is not a JSON array
+     */
+    String readElement(final BufferedSource source) throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (!started) {
+            skipWhitespace(source);
+            if (!source.request(1) || source.buffer().getByte(0) != '[') {
+                throw new IOException("Response body is not a JSON array");
+            }
+            source.skip(1);
+            started = true;
+        }
+        skipWhitespace(source);
+
+        int depth = 0;
+        boolean inString = false;
+        long fromIndex = 0;
+        while (true) {
+            long index = source.indexOfElement(inString ? STRING_CHARS : STRUCTURAL_CHARS, fromIndex);
+            if (index == -1) {
+                throw new EOFException("JSON array is not terminated");
+            }
+            byte b = source.buffer().getByte(index);
+            fromIndex = index + 1;
+            if (inString) {
+                if (b == '\\') {
+                    fromIndex++;
+                } else {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (b) {
+                case '"':
+                    inString = true;
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                    depth--;
+                    break;
+                case ']':
+                    if (depth == 0) {
+                        finished = true;
+                        return element(source, index);
+                    }
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0) {
+                        return element(source, index);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private String element(final BufferedSource source, final long length) throws IOException {
+        String element = source.readUtf8(length).trim();
+        source.skip(1);
+        return element.isEmpty() && finished ? null : element;
+    }
+
+    private static void skipWhitespace(final BufferedSource source) throws IOException {
+        while (source.request(1) && isWhitespace(source.buffer().getByte(0))) {
+            source.skip(1);
+        }
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
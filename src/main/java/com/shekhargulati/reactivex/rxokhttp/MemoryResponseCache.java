@@ -0,0 +1,339 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.*;
+import okio.BufferedSource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory LRU cache of small GET responses, installed as an application interceptor in front of OkHttp's own disk
+ * Cache. Only responses that HTTP allows to be cached and that carry either a freshness lifetime or a validator
+ * (ETag / Last-Modified) are stored, so streaming endpoints never end up here.
+ * <p>
+ * Fresh entries are served without a network call. Stale entries with validators are revalidated with a conditional
+ * request and a 304 refreshes the entry. Within the stale-while-revalidate window a stale entry is served immediately
+ * and revalidated in the background.
+ * <p>
+ * Entries are keyed on the url and on the Accept, Authorization and X-Registry-Auth headers of the request, so a
+ * response is never served to a request made with other credentials. A response with a Vary header is only served to
+ * requests that have the same values for the headers it names.
+ */
+class MemoryResponseCache implements Interceptor {
+
+    private final long maxSize;
+    private final long maxEntrySize;
+    private final long staleWhileRevalidateMillis;
+    private final OkHttpClient revalidationClient;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    private MemoryResponseCache(final ClientConfig clientConfig, final OkHttpClient revalidationClient) {
+        this.maxSize = clientConfig.getMemoryCacheSize();
+        this.maxEntrySize = Math.min(clientConfig.getMemoryCacheMaxEntrySize(), maxSize);
+        this.staleWhileRevalidateMillis = clientConfig.getStaleWhileRevalidate().toMillis();
+        this.revalidationClient = revalidationClient;
+    }
+
+    /**
+     * Returns a client that consults an in-memory cache before making GET requests, or the client itself when the
+     * memory cache is disabled.
+     */
+    static OkHttpClient install(final OkHttpClient client, final ClientConfig clientConfig) {
+        if (clientConfig.getMemoryCacheSize() <= 0) {
+            return client;
+        }
+        return client.newBuilder()
+                .addInterceptor(new MemoryResponseCache(clientConfig, client))
+                .build();
+    }
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!"GET".equals(request.method()) || request.cacheControl().noStore() || hasConditions(request)) {
+            return chain.proceed(request);
+        }
+        Key key = new Key(request);
+        Entry entry = request.cacheControl().noCache() ? null : get(key, request);
+        if (entry == null) {
+            return store(key, chain.proceed(request));
+        }
+        long now = System.currentTimeMillis();
+        if (entry.isFresh(now)) {
+            return entry.toResponse(request);
+        }
+        if (entry.canServeStale(now, staleWhileRevalidateMillis)) {
+            revalidateInBackground(key, entry, request);
+            return entry.toResponse(request);
+        }
+        if (!entry.hasValidators()) {
+            remove(key, entry);
+            return store(key, chain.proceed(request));
+        }
+        return revalidated(key, entry, chain.proceed(conditionalRequest(request, entry)));
+    }
+
+    private void revalidateInBackground(final Key key, final Entry entry, final Request request) {
+        if (!entry.revalidating.compareAndSet(false, true)) {
+            return;
+        }
+        Request conditionalRequest = conditionalRequest(request, entry).newBuilder().tag(null).build();
+        revalidationClient.newCall(conditionalRequest).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                entry.revalidating.set(false);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                try {
+                    revalidated(key, entry, response).body().close();
+                } finally {
+                    entry.revalidating.set(false);
+                }
+            }
+        });
+    }
+
+    private Response revalidated(final Key key, final Entry entry, final Response response) throws IOException {
+        if (response.code() == 304) {
+            response.body().close();
+            Entry updated = entry.update(response.headers(), System.currentTimeMillis());
+            put(key, updated);
+            return updated.toResponse(response.request());
+        }
+        remove(key, entry);
+        return store(key, response);
+    }
+
+    private Response store(final Key key, final Response response) throws IOException {
+        if (!isCacheable(response)) {
+            return response;
+        }
+        BufferedSource source = response.body().source();
+        if (source.request(maxEntrySize + 1)) {
+            // too large to keep in memory; whatever was read stays buffered in the source
+            return response;
+        }
+        byte[] body = source.buffer().readByteArray();
+        MediaType contentType = response.body().contentType();
+        response.body().close();
+        Entry entry = new Entry(response.newBuilder().body(null).build(), contentType, body, System.currentTimeMillis());
+        put(key, entry);
+        return entry.toResponse(response.request());
+    }
+
+    private static boolean isCacheable(final Response response) {
+        if (response.code() != 200 || "*".equals(response.header("Vary"))) {
+            return false;
+        }
+        CacheControl cacheControl = response.cacheControl();
+        if (cacheControl.noStore() || response.request().cacheControl().noStore()) {
+            return false;
+        }
+        return cacheControl.maxAgeSeconds() > 0
+                || response.headers().getDate("Expires") != null
+                || response.header("ETag") != null
+                || response.header("Last-Modified") != null;
+    }
+
+    private static boolean hasConditions(final Request request) {
+        return request.header("If-None-Match") != null || request.header("If-Modified-Since") != null;
+    }
+
+    private static Request conditionalRequest(final Request request, final Entry entry) {
+        Request.Builder builder = request.newBuilder();
+        String etag = entry.response.header("ETag");
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        String lastModified = entry.response.header("Last-Modified");
+        if (lastModified != null) {
+            builder.header("If-Modified-Since", lastModified);
+        }
+        return builder.build();
+    }
+
+    private synchronized Entry get(final Key key, final Request request) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.matchesVary(request) ? entry : null;
+    }
+
+    private synchronized void put(final Key key, final Entry entry) {
+        Entry previous = entries.put(key, entry);
+        size += entry.body.length;
+        if (previous != null) {
+            size -= previous.body.length;
+        }
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().getValue().body.length;
+            eldest.remove();
+        }
+    }
+
+    private synchronized void remove(final Key key, final Entry entry) {
+        if (entries.remove(key, entry)) {
+            size -= entry.body.length;
+        }
+    }
+
+    private static class Key {
+
+        private final HttpUrl url;
+        private final String accept;
+        private final String authorization;
+        private final String registryAuth;
+
+        Key(final Request request) {
+            this.url = request.url();
+            this.accept = request.header("Accept");
+            this.authorization = request.header("Authorization");
+            this.registryAuth = request.header("X-Registry-Auth");
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return url.equals(key.url)
+                    && Objects.equals(accept, key.accept)
+                    && Objects.equals(authorization, key.authorization)
+                    && Objects.equals(registryAuth, key.registryAuth);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, accept, authorization, registryAuth);
+        }
+    }
+
+    private static class Entry {
+
+        private final Response response;
+        private final MediaType contentType;
+        private final byte[] body;
+        private final Map<String, List<String>> varyValues = new LinkedHashMap<>();
+        private final long freshUntilMillis;
+        private final boolean mustRevalidate;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        Entry(final Response response, final MediaType contentType, final byte[] body, final long receivedMillis) {
+            this.response = response;
+            this.contentType = contentType;
+            this.body = body;
+            for (String vary : response.headers("Vary")) {
+                for (String name : vary.split(",")) {
+                    if (!name.trim().isEmpty()) {
+                        varyValues.put(name.trim(), response.request().headers(name.trim()));
+                    }
+                }
+            }
+            CacheControl cacheControl = response.cacheControl();
+            this.mustRevalidate = cacheControl.noCache() || cacheControl.mustRevalidate();
+            this.freshUntilMillis = cacheControl.noCache() ? receivedMillis : expiry(response, cacheControl, receivedMillis);
+        }
+
+        private static long expiry(final Response response, final CacheControl cacheControl, final long receivedMillis) {
+            if (cacheControl.maxAgeSeconds() >= 0) {
+                return receivedMillis + TimeUnit.SECONDS.toMillis(cacheControl.maxAgeSeconds());
+            }
+            Date expires = response.headers().getDate("Expires");
+            Date date = response.headers().getDate("Date");
+            if (expires != null) {
+                long lifetime = expires.getTime() - (date != null ? date.getTime() : receivedMillis);
+                return receivedMillis + Math.max(0, lifetime);
+            }
+            return receivedMillis;
+        }
+
+        /**
+         * @return true if the request has the same values as the stored request for the headers named by Vary
+         */
+        boolean matchesVary(final Request request) {
+            for (Map.Entry<String, List<String>> vary : varyValues.entrySet()) {
+                if (!vary.getValue().equals(request.headers(vary.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean isFresh(final long now) {
+            return now < freshUntilMillis;
+        }
+
+        boolean hasValidators() {
+            return response.header("ETag") != null || response.header("Last-Modified") != null;
+        }
+
+        boolean canServeStale(final long now, final long staleWhileRevalidateMillis) {
+            return !mustRevalidate && now < freshUntilMillis + staleWhileRevalidateMillis;
+        }
+
+        /**
+         * Combines the stored headers with those of a 304 response, as the 304 may carry new validators and a new
+         * freshness lifetime.
+         */
+        Entry update(final Headers notModifiedHeaders, final long receivedMillis) {
+            Headers.Builder headers = response.headers().newBuilder();
+            for (String name : notModifiedHeaders.names()) {
+                if (name.regionMatches(true, 0, "Content-", 0, 8)) {
+                    continue;
+                }
+                headers.removeAll(name);
+                for (String value : notModifiedHeaders.values(name)) {
+                    headers.add(name, value);
+                }
+            }
+            Response updated = response.newBuilder().headers(headers.build()).build();
+            return new Entry(updated, contentType, body, receivedMillis);
+        }
+
+        Response toResponse(final Request request) {
+            return response.newBuilder()
+                    .request(request)
+                    .body(ResponseBody.create(contentType, body))
+                    .build();
+        }
+    }
+}
@@ -25,6 +25,9 @@
 package com.shekhargulati.reactivex.rxokhttp;
 
 import com.shekhargulati.reactivex.rxokhttp.functions.*;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
 import okhttp3.Response;
@@ -54,7 +57,7 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
     OkHttpBasedRxHttpClient(final String baseApiUrl, final ClientConfig clientConfig) {
         OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
         setClientConfig(clientConfig, clientBuilder);
-        client = new DefaultOkHttpBasedRxHttpClient(baseApiUrl, clientBuilder.build(), RxHttpClient::fullEndpointUrl);
+        client = new DefaultOkHttpBasedRxHttpClient(baseUrl(baseApiUrl), clientBuilder.build(), clientConfig);
     }
 
     OkHttpBasedRxHttpClient(final String host, final int port, ClientConfig clientConfig) {
@@ -70,28 +73,63 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
             clientBuilder.sslSocketFactory(new SslCertificates(Paths.get(certPath.get())).sslContext().getSocketFactory());
         }
         setClientConfig(clientConfig, clientBuilder);
-        client = new DefaultOkHttpBasedRxHttpClient(baseApiUrl, clientBuilder.build(), RxHttpClient::fullEndpointUrl);
+        client = new DefaultOkHttpBasedRxHttpClient(baseUrl(baseApiUrl), clientBuilder.build(), clientConfig);
     }
 
-    private void setClientConfig(ClientConfig clientConfig, OkHttpClient.Builder clientBuilder) {
+    private static HttpUrl baseUrl(final String baseApiUrl) {
+        return Optional.ofNullable(baseApiUrl)
+                .filter(url -> url.trim().length() > 0)
+                .map(url -> HttpUrl.parse(url.trim()))
+                .orElseThrow(() -> new IllegalArgumentException("baseApiUrl can't be null, empty or invalid"));
+    }
+
+    /**
+     * OkHttp takes timeouts in milliseconds, with 0 meaning no timeout, so a timeout shorter than a millisecond is
+     * rounded up rather than turned into no timeout at all.
+     */
+    static long timeoutMillis(final Duration timeout) {
+        return timeout.isZero() ? 0 : Math.max(1, timeout.toMillis());
+    }
+
+    static void setClientConfig(ClientConfig clientConfig, OkHttpClient.Builder clientBuilder) {
         clientBuilder.followRedirects(clientConfig.isFollowRedirects());
         clientBuilder.followSslRedirects(clientConfig.isFollowSslRedirects());
         clientBuilder.retryOnConnectionFailure(clientConfig.isRetryOnConnectionFailure());
         Duration readTimeout = clientConfig.getReadTimeout();
         if (readTimeout != null) {
-            clientBuilder.readTimeout(readTimeout.getSeconds(), TimeUnit.SECONDS);
+            clientBuilder.readTimeout(timeoutMillis(readTimeout), TimeUnit.MILLISECONDS);
         }
         Duration writeTimeout = clientConfig.getWriteTimeout();
         if (writeTimeout != null) {
-            clientBuilder.writeTimeout(writeTimeout.getSeconds(), TimeUnit.SECONDS);
+            clientBuilder.writeTimeout(timeoutMillis(writeTimeout), TimeUnit.MILLISECONDS);
         }
         Duration connectTimeout = clientConfig.getConnectTimeout();
         if (connectTimeout != null) {
-            clientBuilder.connectTimeout(connectTimeout.getSeconds(), TimeUnit.SECONDS);
+            clientBuilder.connectTimeout(timeoutMillis(connectTimeout), TimeUnit.MILLISECONDS);
+        }
+        ConnectionPool connectionPool = clientConfig.getConnectionPool();
+        if (connectionPool == null) {
+            connectionPool = new ConnectionPool(clientConfig.getMaxIdleConnections(), clientConfig.getKeepAliveDuration().toMillis(), TimeUnit.MILLISECONDS);
+        }
+        clientBuilder.connectionPool(connectionPool);
+        Dispatcher dispatcher = clientConfig.getDispatcher();
+        if (dispatcher == null) {
+            dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(clientConfig.getMaxRequests());
+            dispatcher.setMaxRequestsPerHost(clientConfig.getMaxRequestsPerHost());
+        }
+        clientBuilder.dispatcher(dispatcher);
+        if (clientConfig.getCache() != null) {
+            clientBuilder.cache(clientConfig.getCache());
         }
     }
 
 
+    @Override
+    public RequestBuilder request() {
+        return client.request();
+    }
+
     @Override
     public Observable<String> get(String endpoint, QueryParameter... queryParameters) {
         return client.get(endpoint, queryParameters);
@@ -127,6 +165,16 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.get(endpoint, transformer, queryParameters);
     }
 
+    @Override
+    public <R> Observable<R> get(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, StringResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return client.get(endpoint, pathVariables, headers, transformer, queryParameters);
+    }
+
+    @Override
+    public <R> Observable<R> getJsonArrayStream(String endpoint, Map<String, String> headers, StringResponseTransformer<R> elementTransformer, QueryParameter... queryParameters) {
+        return client.getJsonArrayStream(endpoint, headers, elementTransformer, queryParameters);
+    }
+
     @Override
     public Observable<String> getResponseStream(String endpoint, QueryParameter... queryParameters) {
         return client.getResponseStream(endpoint, queryParameters);
@@ -142,11 +190,21 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.getResponseStream(endpoint, headers, transformer, queryParameters);
     }
 
+    @Override
+    public <T> Observable<T> getResponseStream(String endpoint, Map<String, String> headers, Delimiter delimiter, StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
+        return client.getResponseStream(endpoint, headers, delimiter, transformer, queryParameters);
+    }
+
     @Override
     public Observable<Buffer> getResponseBufferStream(String endpoint, QueryParameter... queryParameters) {
         return client.getResponseBufferStream(endpoint, queryParameters);
     }
 
+    @Override
+    public Observable<StreamFrame> getResponseFrameStream(String endpoint, Map<String, String> headers, QueryParameter... queryParameters) {
+        return client.getResponseFrameStream(endpoint, headers, queryParameters);
+    }
+
     @Override
     public <T> Observable<T> getResponseStream(String endpoint, StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
         return client.getResponseStream(endpoint, transformer, queryParameters);
@@ -202,6 +260,11 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.post(endpoint, headers, postBody, transformer, queryParameters);
     }
 
+    @Override
+    public <R> Observable<R> post(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return client.post(endpoint, pathVariables, headers, postBody, transformer, queryParameters);
+    }
+
     @Override
     public Observable<String> postAndReceiveResponse(String endpoint, QueryParameter... queryParameters) {
         return client.postAndReceiveResponse(endpoint, queryParameters);
@@ -222,6 +285,11 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.postAndReceiveResponse(endpoint, headers, postBody, errorChecker, queryParameters);
     }
 
+    @Override
+    public Observable<String> postAndReceiveResponse(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, Predicate<String> errorChecker, QueryParameter... queryParameters) {
+        return client.postAndReceiveResponse(endpoint, headers, postBody, delimiter, errorChecker, queryParameters);
+    }
+
     @Override
     public Observable<String> postAndReceiveStream(String endpoint, String postBody, QueryParameter... queryParameters) {
         return client.postAndReceiveStream(endpoint, postBody, queryParameters);
@@ -232,6 +300,16 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.postAndReceiveStream(endpoint, headers, postBody, queryParameters);
     }
 
+    @Override
+    public Observable<String> postAndReceiveStream(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, QueryParameter... queryParameters) {
+        return client.postAndReceiveStream(endpoint, headers, postBody, delimiter, queryParameters);
+    }
+
+    @Override
+    public Observable<StreamFrame> postAndReceiveFrameStream(String endpoint, Map<String, String> headers, String postBody, QueryParameter... queryParameters) {
+        return client.postAndReceiveFrameStream(endpoint, headers, postBody, queryParameters);
+    }
+
     @Override
     public <R> Observable<R> postTarStream(String endpoint, Path pathToTarArchive, BufferTransformer<R> transformer) {
         return client.postTarStream(endpoint, pathToTarArchive, transformer);
@@ -247,6 +325,21 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.postTarStream(endpoint, pathToTarArchive);
     }
 
+    @Override
+    public <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, BufferTransformer<R> transformer) {
+        return client.postTarStream(endpoint, directory, options, transformer);
+    }
+
+    @Override
+    public <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, ResponseTransformer<R> transformer) {
+        return client.postTarStream(endpoint, directory, options, transformer);
+    }
+
+    @Override
+    public Observable<HttpStatus> postTarStream(String endpoint, Path directory, TarOptions options) {
+        return client.postTarStream(endpoint, directory, options);
+    }
+
     @Override
     public Observable<HttpStatus> delete(String endpoint, QueryParameter... queryParameters) {
         return client.delete(endpoint, queryParameters);
@@ -257,6 +350,11 @@ class OkHttpBasedRxHttpClient implements RxHttpClient {
         return client.delete(endpoint, headers, queryParameters);
     }
 
+    @Override
+    public Observable<HttpStatus> delete(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, QueryParameter... queryParameters) {
+        return client.delete(endpoint, pathVariables, headers, queryParameters);
+    }
+
     @Override
     public Observable<Response> head(String endpoint, QueryParameter... queryParameters) {
         return client.head(endpoint, queryParameters);
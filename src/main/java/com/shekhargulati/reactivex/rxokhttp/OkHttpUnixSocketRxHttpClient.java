@@ -10,6 +10,8 @@ import okio.Buffer;
 import okio.ByteString;
 import org.newsclub.net.unix.AFUNIXSocket;
 import org.newsclub.net.unix.AFUNIXSocketAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import rx.Observable;
 
 import javax.net.SocketFactory;
@@ -29,12 +31,16 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
     private final DefaultOkHttpBasedRxHttpClient client;
 
     public OkHttpUnixSocketRxHttpClient(final String unixSocketPath) {
+        this(unixSocketPath, ClientConfig.defaultConfig());
+    }
+
+    public OkHttpUnixSocketRxHttpClient(final String unixSocketPath, final ClientConfig clientConfig) {
         UnixSocketFactory socketFactory = new UnixSocketFactory();
-        OkHttpClient okHttpClient = new OkHttpClient.Builder()
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
                 .socketFactory(socketFactory)
-                .dns(socketFactory)
-                .build();
-        client = new DefaultOkHttpBasedRxHttpClient(unixSocketPath, okHttpClient, (baseApiUrl, endpoint, params) -> socketFactory.urlForUnixSocketPath(baseApiUrl, endpoint));
+                .dns(socketFactory);
+        OkHttpBasedRxHttpClient.setClientConfig(clientConfig, clientBuilder);
+        client = new DefaultOkHttpBasedRxHttpClient(socketFactory.baseUrlForUnixSocketPath(unixSocketPath), clientBuilder.build(), clientConfig);
     }
 
     private static class UnixSocketFactory extends SocketFactory implements Dns {
@@ -45,11 +51,10 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
             }
         }
 
-        public HttpUrl urlForUnixSocketPath(String unixSocketPath, String path) {
+        public HttpUrl baseUrlForUnixSocketPath(String unixSocketPath) {
             return new HttpUrl.Builder()
                     .scheme("http")
                     .host(UnixSocket.encodeHostname(unixSocketPath))
-                    .addPathSegment(path)
                     .build();
         }
 
@@ -86,21 +91,35 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         }
     }
 
+    /**
+     * Adapts an AFUNIXSocket to the Socket API used by OkHttp. Every state and stream method is delegated so the
+     * ConnectionPool sees the real state of the Unix domain connection and can keep reusing it. TCP specific options
+     * have no meaning for Unix domain sockets and are ignored.
+     */
     private static class UnixSocket extends Socket {
 
-        private AFUNIXSocket socket;
-
-        @Override
-        public void connect(SocketAddress endpoint, int timeout) throws IOException {
-            InetAddress address = ((InetSocketAddress) endpoint).getAddress();
-            String socketPath = decodeHostname(address);
+        private final Logger logger = LoggerFactory.getLogger(UnixSocket.class);
 
-            System.out.println("connect via '" + socketPath + "'...");
-            File socketFile = new File(socketPath);
+        private final AFUNIXSocket socket;
+        private InetSocketAddress endpoint;
+        private int soTimeout;
 
+        UnixSocket() throws IOException {
             socket = AFUNIXSocket.newInstance();
-            socket.connect(new AFUNIXSocketAddress(socketFile), timeout);
-            socket.setSoTimeout(timeout);
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint) throws IOException {
+            connect(endpoint, 0);
+        }
+
+        @Override
+        public void connect(SocketAddress endpoint, int timeout) throws IOException {
+            this.endpoint = (InetSocketAddress) endpoint;
+            String socketPath = decodeHostname(this.endpoint.getAddress());
+            logger.debug("connect via '{}'...", socketPath);
+            socket.connect(new AFUNIXSocketAddress(new File(socketPath)), timeout);
+            socket.setSoTimeout(soTimeout);
         }
 
         @Override
@@ -109,13 +128,18 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         }
 
         @Override
-        public boolean isConnected() {
-            return socket.isConnected();
+        public InetAddress getInetAddress() {
+            return endpoint != null ? endpoint.getAddress() : null;
         }
 
         @Override
-        public OutputStream getOutputStream() throws IOException {
-            return socket.getOutputStream();
+        public int getPort() {
+            return endpoint != null ? endpoint.getPort() : 0;
+        }
+
+        @Override
+        public SocketAddress getRemoteSocketAddress() {
+            return endpoint;
         }
 
         @Override
@@ -123,6 +147,120 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
             return socket.getInputStream();
         }
 
+        @Override
+        public OutputStream getOutputStream() throws IOException {
+            return socket.getOutputStream();
+        }
+
+        @Override
+        public void setSoTimeout(int timeout) throws SocketException {
+            // OkHttp sets the read timeout before connecting, it is applied to the Unix socket once connected
+            soTimeout = timeout;
+            if (socket.isConnected()) {
+                socket.setSoTimeout(timeout);
+            }
+        }
+
+        @Override
+        public int getSoTimeout() throws SocketException {
+            return soTimeout;
+        }
+
+        @Override
+        public void setSendBufferSize(int size) throws SocketException {
+            socket.setSendBufferSize(size);
+        }
+
+        @Override
+        public int getSendBufferSize() throws SocketException {
+            return socket.getSendBufferSize();
+        }
+
+        @Override
+        public void setReceiveBufferSize(int size) throws SocketException {
+            socket.setReceiveBufferSize(size);
+        }
+
+        @Override
+        public int getReceiveBufferSize() throws SocketException {
+            return socket.getReceiveBufferSize();
+        }
+
+        @Override
+        public void setSoLinger(boolean on, int linger) throws SocketException {
+            socket.setSoLinger(on, linger);
+        }
+
+        @Override
+        public int getSoLinger() throws SocketException {
+            return socket.getSoLinger();
+        }
+
+        @Override
+        public void setTcpNoDelay(boolean on) throws SocketException {
+        }
+
+        @Override
+        public boolean getTcpNoDelay() throws SocketException {
+            return false;
+        }
+
+        @Override
+        public void setKeepAlive(boolean on) throws SocketException {
+        }
+
+        @Override
+        public boolean getKeepAlive() throws SocketException {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+        @Override
+        public void shutdownInput() throws IOException {
+            socket.shutdownInput();
+        }
+
+        @Override
+        public void shutdownOutput() throws IOException {
+            socket.shutdownOutput();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return socket.isConnected();
+        }
+
+        @Override
+        public boolean isBound() {
+            return socket.isBound();
+        }
+
+        @Override
+        public boolean isClosed() {
+            return socket.isClosed();
+        }
+
+        @Override
+        public boolean isInputShutdown() {
+            return socket.isInputShutdown();
+        }
+
+        @Override
+        public boolean isOutputShutdown() {
+            return socket.isOutputShutdown();
+        }
+
+        @Override
+        public String toString() {
+            return "UnixSocket{" +
+                    "socket=" + socket +
+                    '}';
+        }
+
         private static String encodeHostname(String path) {
             return Encoder.encode(path) + ".socket";
         }
@@ -143,6 +281,11 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         }
     }
 
+    @Override
+    public RequestBuilder request() {
+        return client.request();
+    }
+
     @Override
     public Observable<String> get(String endpoint, QueryParameter... queryParameters) {
         return client.get(endpoint, queryParameters);
@@ -178,6 +321,16 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.get(endpoint, transformer, queryParameters);
     }
 
+    @Override
+    public <R> Observable<R> get(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, StringResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return client.get(endpoint, pathVariables, headers, transformer, queryParameters);
+    }
+
+    @Override
+    public <R> Observable<R> getJsonArrayStream(String endpoint, Map<String, String> headers, StringResponseTransformer<R> elementTransformer, QueryParameter... queryParameters) {
+        return client.getJsonArrayStream(endpoint, headers, elementTransformer, queryParameters);
+    }
+
     @Override
     public Observable<String> getResponseStream(String endpoint, QueryParameter... queryParameters) {
         return client.getResponseStream(endpoint, queryParameters);
@@ -193,11 +346,21 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.getResponseStream(endpoint, headers, transformer, queryParameters);
     }
 
+    @Override
+    public <T> Observable<T> getResponseStream(String endpoint, Map<String, String> headers, Delimiter delimiter, StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
+        return client.getResponseStream(endpoint, headers, delimiter, transformer, queryParameters);
+    }
+
     @Override
     public Observable<Buffer> getResponseBufferStream(String endpoint, QueryParameter... queryParameters) {
         return client.getResponseBufferStream(endpoint, queryParameters);
     }
 
+    @Override
+    public Observable<StreamFrame> getResponseFrameStream(String endpoint, Map<String, String> headers, QueryParameter... queryParameters) {
+        return client.getResponseFrameStream(endpoint, headers, queryParameters);
+    }
+
     @Override
     public <T> Observable<T> getResponseStream(String endpoint, StringResponseTransformer<T> transformer, QueryParameter... queryParameters) {
         return client.getResponseStream(endpoint, transformer, queryParameters);
@@ -253,6 +416,11 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.post(endpoint, headers, postBody, transformer, queryParameters);
     }
 
+    @Override
+    public <R> Observable<R> post(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters) {
+        return client.post(endpoint, pathVariables, headers, postBody, transformer, queryParameters);
+    }
+
     @Override
     public Observable<String> postAndReceiveResponse(String endpoint, QueryParameter... queryParameters) {
         return client.postAndReceiveResponse(endpoint, queryParameters);
@@ -273,6 +441,11 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.postAndReceiveResponse(endpoint, headers, postBody, errorChecker, queryParameters);
     }
 
+    @Override
+    public Observable<String> postAndReceiveResponse(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, Predicate<String> errorChecker, QueryParameter... queryParameters) {
+        return client.postAndReceiveResponse(endpoint, headers, postBody, delimiter, errorChecker, queryParameters);
+    }
+
     @Override
     public Observable<String> postAndReceiveStream(String endpoint, String postBody, QueryParameter... queryParameters) {
         return client.postAndReceiveStream(endpoint, postBody, queryParameters);
@@ -283,6 +456,16 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.postAndReceiveStream(endpoint, headers, postBody, queryParameters);
     }
 
+    @Override
+    public Observable<String> postAndReceiveStream(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, QueryParameter... queryParameters) {
+        return client.postAndReceiveStream(endpoint, headers, postBody, delimiter, queryParameters);
+    }
+
+    @Override
+    public Observable<StreamFrame> postAndReceiveFrameStream(String endpoint, Map<String, String> headers, String postBody, QueryParameter... queryParameters) {
+        return client.postAndReceiveFrameStream(endpoint, headers, postBody, queryParameters);
+    }
+
     @Override
     public <R> Observable<R> postTarStream(String endpoint, Path pathToTarArchive, BufferTransformer<R> transformer) {
         return client.postTarStream(endpoint, pathToTarArchive, transformer);
@@ -298,6 +481,21 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.postTarStream(endpoint, pathToTarArchive);
     }
 
+    @Override
+    public <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, BufferTransformer<R> transformer) {
+        return client.postTarStream(endpoint, directory, options, transformer);
+    }
+
+    @Override
+    public <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, ResponseTransformer<R> transformer) {
+        return client.postTarStream(endpoint, directory, options, transformer);
+    }
+
+    @Override
+    public Observable<HttpStatus> postTarStream(String endpoint, Path directory, TarOptions options) {
+        return client.postTarStream(endpoint, directory, options);
+    }
+
     @Override
     public Observable<HttpStatus> delete(String endpoint, QueryParameter... queryParameters) {
         return client.delete(endpoint, queryParameters);
@@ -308,6 +506,11 @@ class OkHttpUnixSocketRxHttpClient implements RxHttpClient {
         return client.delete(endpoint, headers, queryParameters);
     }
 
+    @Override
+    public Observable<HttpStatus> delete(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, QueryParameter... queryParameters) {
+        return client.delete(endpoint, pathVariables, headers, queryParameters);
+    }
+
     @Override
     public Observable<Response> head(String endpoint, QueryParameter... queryParameters) {
         return client.head(endpoint, queryParameters);
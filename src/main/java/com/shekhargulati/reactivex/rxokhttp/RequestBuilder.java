@@ -0,0 +1,399 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.shekhargulati.reactivex.rxokhttp.functions.BodyWriter;
+import com.shekhargulati.reactivex.rxokhttp.functions.IoFunction;
+import com.shekhargulati.reactivex.rxokhttp.functions.ResponseTransformer;
+import com.shekhargulati.reactivex.rxokhttp.functions.StringResponseTransformer;
+import okhttp3.CacheControl;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import rx.Observable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder of a single request, created with {@link RxHttpClient#request()}:
+ * <pre>
+ * client.request()
+ *         .get(EndpointTemplate.of("/containers/{id}/json"))
+ *         .pathVariable("id", containerId)
+ *         .header("X-Registry-Auth", auth)
+ *         .query("size", true)
+ *         .deadline(Duration.ofMillis(500))
+ *         .retrieveBody(json -> gson.fromJson(json, Container.class));
+ * </pre>
+ * Nothing is sent until the Observable returned by one of the retrieve or stream methods is subscribed to, and every
+ * subscription sends the request again. Requests of all the methods go through the same execution path, with the
+ * retries, circuit breakers, concurrency limits and metrics configured on the client.
+ */
+public class RequestBuilder {
+
+    private final DefaultOkHttpBasedRxHttpClient client;
+
+    private String method = "GET";
+    private String endpoint;
+    private EndpointTemplate template;
+    private Map<String, Object> pathVariables = Collections.emptyMap();
+    private HttpHeaders headers = HttpHeaders.empty();
+    private List<QueryParameter> queryParameters = Collections.emptyList();
+    private RequestBody body;
+    private Duration timeout;
+    private Duration deadlineTimeout;
+    private Instant deadline;
+    private CacheControl cacheControl;
+    private RequestPriority priority = RequestPriority.NORMAL;
+
+    RequestBuilder(final DefaultOkHttpBasedRxHttpClient client) {
+        this.client = client;
+    }
+
+    public RequestBuilder get(final String endpoint) {
+        return method("GET", endpoint);
+    }
+
+    public RequestBuilder get(final EndpointTemplate endpoint) {
+        return method("GET", endpoint);
+    }
+
+    public RequestBuilder post(final String endpoint) {
+        return method("POST", endpoint);
+    }
+
+    public RequestBuilder post(final EndpointTemplate endpoint) {
+        return method("POST", endpoint);
+    }
+
+    public RequestBuilder put(final String endpoint) {
+        return method("PUT", endpoint);
+    }
+
+    public RequestBuilder put(final EndpointTemplate endpoint) {
+        return method("PUT", endpoint);
+    }
+
+    public RequestBuilder patch(final String endpoint) {
+        return method("PATCH", endpoint);
+    }
+
+    public RequestBuilder patch(final EndpointTemplate endpoint) {
+        return method("PATCH", endpoint);
+    }
+
+    public RequestBuilder delete(final String endpoint) {
+        return method("DELETE", endpoint);
+    }
+
+    public RequestBuilder delete(final EndpointTemplate endpoint) {
+        return method("DELETE", endpoint);
+    }
+
+    public RequestBuilder head(final String endpoint) {
+        return method("HEAD", endpoint);
+    }
+
+    public RequestBuilder head(final EndpointTemplate endpoint) {
+        return method("HEAD", endpoint);
+    }
+
+    private RequestBuilder method(final String method, final String endpoint) {
+        if (endpoint == null || endpoint.trim().isEmpty()) {
+            throw new IllegalArgumentException("endpoint can't be null or empty");
+        }
+        this.method = method;
+        this.endpoint = endpoint;
+        this.template = null;
+        return this;
+    }
+
+    private RequestBuilder method(final String method, final EndpointTemplate template) {
+        this.method = method;
+        this.endpoint = template.template();
+        this.template = template;
+        return this;
+    }
+
+    /**
+     * Binds a path variable of the EndpointTemplate the request is made to.
+     */
+    public RequestBuilder pathVariable(final String name, final Object value) {
+        if (pathVariables.isEmpty()) {
+            pathVariables = new LinkedHashMap<>();
+        }
+        pathVariables.put(name, value);
+        return this;
+    }
+
+    public RequestBuilder pathVariables(final Map<String, ?> pathVariables) {
+        pathVariables.forEach(this::pathVariable);
+        return this;
+    }
+
+    /**
+     * Sets the header, replacing the value it has in the default headers of the client or an earlier call.
+     */
+    public RequestBuilder header(final String name, final String value) {
+        headers = headers.with(name, value);
+        return this;
+    }
+
+    public RequestBuilder headers(final HttpHeaders headers) {
+        this.headers = this.headers.withAll(headers);
+        return this;
+    }
+
+    public RequestBuilder query(final String param, final Object value) {
+        return query(QueryParameter.of(param, value));
+    }
+
+    public RequestBuilder query(final QueryParameter... queryParameters) {
+        if (queryParameters == null || queryParameters.length == 0) {
+            return this;
+        }
+        if (this.queryParameters.isEmpty()) {
+            this.queryParameters = new ArrayList<>();
+        }
+        this.queryParameters.addAll(Arrays.asList(queryParameters));
+        return this;
+    }
+
+    /**
+     * @param json body sent as application/json
+     */
+    public RequestBuilder body(final String json) {
+        return body(RequestBody.create(DefaultOkHttpBasedRxHttpClient.JSON, json));
+    }
+
+    public RequestBuilder body(final MediaType contentType, final String body) {
+        return body(RequestBody.create(contentType, body));
+    }
+
+    /**
+     * Sends the bytes as they are, with no charset encoding on the way.
+     */
+    public RequestBuilder body(final MediaType contentType, final ByteString body) {
+        return body(RequestBody.create(contentType, body));
+    }
+
+    /**
+     * Sends byteCount bytes of the array starting at offset, without copying them. The array must not be changed
+     * until the request has completed.
+     */
+    public RequestBuilder body(final MediaType contentType, final byte[] body, final int offset, final int byteCount) {
+        return body(RequestBody.create(contentType, body, offset, byteCount));
+    }
+
+    /**
+     * Sends the remaining bytes of the buffer, which is left untouched. Heap buffers are written without copying;
+     * neither kind of buffer must be changed until the request has completed.
+     */
+    public RequestBuilder body(final MediaType contentType, final ByteBuffer body) {
+        final ByteBuffer content = body.slice();
+        final int contentLength = content.remaining();
+        return body(contentType, contentLength, sink -> {
+            if (content.hasArray()) {
+                sink.write(content.array(), content.arrayOffset(), contentLength);
+                return;
+            }
+            final ByteBuffer source = content.duplicate();
+            final byte[] chunk = new byte[Math.min(contentLength, 8192)];
+            while (source.hasRemaining()) {
+                int count = Math.min(chunk.length, source.remaining());
+                source.get(chunk, 0, count);
+                sink.write(chunk, 0, count);
+            }
+        });
+    }
+
+    /**
+     * Streams the body from the writer straight into the connection.
+     *
+     * @param contentLength number of bytes the writer writes, or -1 if unknown, in which case the body is sent chunked
+     */
+    public RequestBuilder body(final MediaType contentType, final long contentLength, final BodyWriter writer) {
+        return body(new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writer.writeTo(sink);
+            }
+        });
+    }
+
+    public RequestBuilder body(final RequestBody body) {
+        this.body = body;
+        return this;
+    }
+
+    /**
+     * Overrides the connect, read and write timeouts of the client for this request.
+     */
+    public RequestBuilder timeout(final Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Limits the time the whole request may take, from subscription until the last byte of the response body has been
+     * read, retries included. The call is cancelled when the deadline expires and the Observable fails with a
+     * DeadlineExceededException. Replaces the call timeout of the client.
+     */
+    public RequestBuilder deadline(final Duration timeout) {
+        this.deadlineTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * Same as {@link #deadline(Duration)} with an absolute deadline, typically the deadline of the upstream request
+     * being served, so a call never outlives the request it was made for. When both are given the earlier one applies.
+     */
+    public RequestBuilder deadline(final Instant deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Cache directives of the request, used by the HTTP cache and the in memory response cache of the client, e.g.
+     * {@link CacheControl#FORCE_NETWORK} to skip them.
+     */
+    public RequestBuilder cacheControl(final CacheControl cacheControl) {
+        this.cacheControl = cacheControl;
+        return this;
+    }
+
+    /**
+     * Priority of the request while it waits for a slot of the ConcurrencyLimit of the client. It has no effect when
+     * the client is not limited.
+     */
+    public RequestBuilder priority(final RequestPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * @return Observable with the single response body
+     */
+    public Observable<String> retrieve() {
+        return retrieveBody(StringResponseTransformer.identityOp());
+    }
+
+    /**
+     * @return Observable with the single value decoded from the response, whose body is closed once decoded
+     */
+    public <R> Observable<R> retrieve(final ResponseTransformer<R> decoder) {
+        return client.retrieve(this, decoder);
+    }
+
+    public <R> Observable<R> retrieveBody(final StringResponseTransformer<R> decoder) {
+        return retrieve(response -> decoder.apply(response.body().string()));
+    }
+
+    /**
+     * @return Observable with the records of the response body, emitted as they are received
+     */
+    public Observable<String> stream(final Delimiter delimiter) {
+        return stream(delimiter::readRecord);
+    }
+
+    /**
+     * @param reader reads the next element from the response body, blocking until enough of it has been received
+     * @return Observable with the elements of the response body, emitted as they are read
+     */
+    public <T> Observable<T> stream(final IoFunction<BufferedSource, T> reader) {
+        return client.stream(this, reader);
+    }
+
+    String method() {
+        return method;
+    }
+
+    /**
+     * @return the template, or the plain endpoint, used to name the request in metrics and to group it for circuit
+     * breakers and concurrency limits
+     */
+    String endpoint() {
+        if (endpoint == null) {
+            throw new IllegalStateException("No endpoint was given to the request");
+        }
+        return endpoint;
+    }
+
+    HttpUrl url(final HttpUrl baseUrl) {
+        final QueryParameter[] queryParameters = this.queryParameters.toArray(new QueryParameter[this.queryParameters.size()]);
+        return template != null
+                ? template.expand(baseUrl, pathVariables, queryParameters)
+                : EndpointTemplate.resolve(baseUrl, endpoint(), queryParameters);
+    }
+
+    HttpHeaders headers() {
+        return headers;
+    }
+
+    RequestBody body() {
+        return body;
+    }
+
+    Duration timeout() {
+        return timeout;
+    }
+
+    Duration deadlineTimeout() {
+        return deadlineTimeout;
+    }
+
+    Instant deadline() {
+        return deadline;
+    }
+
+    CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    RequestPriority priority() {
+        return priority;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.shekhargulati.reactivex.rxokhttp;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.observers.SerializedSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Deadline of a whole request: from subscription until its Observable terminates, so it covers waiting for a slot,
+ * connecting, writing, reading, retries and streaming the response body. When it expires the Observable is
+ * unsubscribed from, which cancels the OkHttp Call and closes the body, and fails with a DeadlineExceededException.
+ * OkHttp 3.3 has no call timeout, so this is done with a timer instead.
+ */
+class RequestDeadline {
+
+    private final Duration timeout;
+    private final Instant deadline;
+
+    /**
+     * @param timeout  budget counted from subscription, or null
+     * @param deadline absolute deadline, e.g. propagated from an upstream request, or null
+     */
+    RequestDeadline(final Duration timeout, final Instant deadline) {
+        this.timeout = timeout;
+        this.deadline = deadline;
+    }
+
+    boolean isSet() {
+        return timeout != null || deadline != null;
+    }
+
+    private Duration remaining() {
+        Duration remaining = timeout;
+        if (deadline != null) {
+            Duration untilDeadline = Duration.between(Instant.now(), deadline);
+            remaining = remaining == null || untilDeadline.compareTo(remaining) < 0 ? untilDeadline : remaining;
+        }
+        return remaining;
+    }
+
+    <T> Observable<T> apply(final String endpoint, final Observable<T> source) {
+        if (!isSet()) {
+            return source;
+        }
+        return Observable.create(child -> {
+            final Duration budget = remaining();
+            if (budget.isNegative() || budget.isZero()) {
+                child.onError(new DeadlineExceededException(endpoint, Duration.ZERO));
+                return;
+            }
+            final Subscriber<T> subscriber = new SerializedSubscriber<>(child);
+            final AtomicBoolean terminated = new AtomicBoolean();
+            final UpstreamSubscriber<T> upstream = new UpstreamSubscriber<>(subscriber, terminated);
+            final Scheduler.Worker timer = Schedulers.computation().createWorker();
+            child.add(upstream);
+            child.add(timer);
+            child.setProducer(upstream::requestMore);
+            timer.schedule(() -> {
+                if (terminated.compareAndSet(false, true)) {
+                    upstream.unsubscribe();
+                    subscriber.onError(new DeadlineExceededException(endpoint, budget));
+                }
+            }, budget.toNanos(), TimeUnit.NANOSECONDS);
+            source.unsafeSubscribe(upstream);
+        });
+    }
+
+    /**
+     * Passes the signals of the source on until the deadline expires. It requests nothing by itself, only what the
+     * child requests, so a stream read under a deadline still reads no further than the consumer has asked for.
+     */
+    private static class UpstreamSubscriber<T> extends Subscriber<T> {
+
+        private final Subscriber<T> subscriber;
+        private final AtomicBoolean terminated;
+
+        UpstreamSubscriber(final Subscriber<T> subscriber, final AtomicBoolean terminated) {
+            this.subscriber = subscriber;
+            this.terminated = terminated;
+            request(0);
+        }
+
+        void requestMore(final long n) {
+            request(n);
+        }
+
+        @Override
+        public void onNext(T t) {
+            subscriber.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            if (terminated.compareAndSet(false, true)) {
+                subscriber.onCompleted();
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Response;
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscriber;
+import rx.Subscription;
+import rx.schedulers.Schedulers;
+import rx.subscriptions.CompositeSubscription;
+import rx.subscriptions.SerialSubscription;
+import rx.subscriptions.Subscriptions;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Races a call against a delayed copy of itself according to a HedgePolicy. The delay is taken from a LatencyHistogram
+ * of the time to response headers kept per endpoint, fed by the first attempts of the requests only. A first attempt
+ * cancelled because its hedge won is recorded with the time it had been waiting, a lower bound of its latency, so slow
+ * responses still move the percentile up.
+ */
+class RequestHedger {
+
+    private static final String OTHER_ENDPOINTS = "*";
+
+    private final HedgePolicy policy;
+    private final RetryBudget budget;
+    private final EndpointRegistry<LatencyHistogram> latencies = new EndpointRegistry<>(endpoint -> new LatencyHistogram());
+
+    RequestHedger(final HedgePolicy policy) {
+        this.policy = policy;
+        this.budget = new RetryBudget(policy.getMaxHedgeRate());
+    }
+
+    Observable<Response> hedge(final String endpoint, final Observable<Response> call) {
+        if (!policy.isEnabled()) {
+            return call;
+        }
+        return Observable.create(subscriber -> new Race(latencies(endpoint), call, subscriber).start());
+    }
+
+    LatencyHistogram latencies(final String endpoint) {
+        return latencies.get(EndpointRegistry.path(endpoint), OTHER_ENDPOINTS);
+    }
+
+    private long hedgeDelayMillis(final LatencyHistogram histogram) {
+        if (histogram.getCount() < policy.getMinSamples()) {
+            return -1;
+        }
+        long percentileMillis = TimeUnit.MICROSECONDS.toMillis(histogram.getValueAtPercentile(policy.getPercentile()));
+        return Math.max(policy.getMinDelay().toMillis(), percentileMillis);
+    }
+
+    /**
+     * One hedged request. The first response that is not a server error wins and completes the subscriber. A server
+     * error or a failure is passed on as soon as no other attempt is in flight, without waiting for the hedge to be
+     * started; while the other attempt is in flight a server error is held back and only passed on if that attempt
+     * fails too. Responses losing the race are closed and the other attempt is unsubscribed from, which cancels its
+     * Call. The winning attempt stays subscribed until the subscriber unsubscribes, so its Call remains cancellable
+     * while the response body is being read.
+     */
+    private class Race {
+
+        private final LatencyHistogram histogram;
+        private final Observable<Response> call;
+        private final Subscriber<? super Response> subscriber;
+        private final AtomicReferenceArray<Subscription> attempts = new AtomicReferenceArray<>(2);
+        private final SerialSubscription timer = new SerialSubscription();
+        private long primaryStartNanos;
+
+        // guarded by this
+        private boolean done = false;
+        private boolean primaryInFlight = true;
+        private int inFlight = 1;
+        private Response serverError;
+
+        Race(final LatencyHistogram histogram, final Observable<Response> call, final Subscriber<? super Response> subscriber) {
+            this.histogram = histogram;
+            this.call = call;
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            subscriber.add(timer);
+            subscriber.add(Subscriptions.create(this::closeServerError));
+            budget.deposit();
+            long delayMillis = hedgeDelayMillis(histogram);
+            primaryStartNanos = System.nanoTime();
+            attempt(0);
+            if (delayMillis >= 0) {
+                Scheduler.Worker worker = Schedulers.io().createWorker();
+                timer.set(worker);
+                worker.schedule(() -> {
+                    if (startHedge()) {
+                        attempt(1);
+                    }
+                }, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized boolean startHedge() {
+            if (done || !budget.tryWithdraw()) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        }
+
+        private void attempt(final int index) {
+            CompositeSubscription subscription = new CompositeSubscription();
+            attempts.set(index, subscription);
+            subscriber.add(subscription);
+            synchronized (this) {
+                if (done) {
+                    subscription.unsubscribe();
+                    return;
+                }
+            }
+            Subscriber<Response> attemptSubscriber = new Subscriber<Response>() {
+                @Override
+                public void onNext(Response response) {
+                    if (index == 0 && response.code() < 500) {
+                        histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - primaryStartNanos));
+                    }
+                    onResponse(index, response);
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    onFailure(index, e);
+                }
+
+                @Override
+                public void onCompleted() {
+                }
+            };
+            subscription.add(attemptSubscriber);
+            call.unsafeSubscribe(attemptSubscriber);
+        }
+
+        private void onResponse(final int index, final Response response) {
+            Response losing;
+            boolean wins = false;
+            boolean cancelPrimary = false;
+            synchronized (this) {
+                inFlight--;
+                if (index == 0) {
+                    primaryInFlight = false;
+                }
+                if (done) {
+                    losing = response;
+                } else if (response.code() >= 500 && inFlight > 0) {
+                    losing = serverError;
+                    serverError = response;
+                } else {
+                    done = true;
+                    wins = true;
+                    losing = serverError;
+                    serverError = null;
+                    cancelPrimary = primaryInFlight;
+                }
+            }
+            if (losing != null) {
+                losing.body().close();
+            }
+            if (wins) {
+                win(index, response, cancelPrimary);
+            }
+        }
+
+        private void onFailure(final int index, final Throwable error) {
+            Response response;
+            synchronized (this) {
+                inFlight--;
+                if (index == 0) {
+                    primaryInFlight = false;
+                }
+                if (done || inFlight > 0) {
+                    return;
+                }
+                done = true;
+                response = serverError;
+                serverError = null;
+            }
+            timer.unsubscribe();
+            if (response != null) {
+                subscriber.onNext(response);
+                subscriber.onCompleted();
+            } else {
+                subscriber.onError(error);
+            }
+        }
+
+        private void win(final int index, final Response response, final boolean cancelPrimary) {
+            timer.unsubscribe();
+            Subscription other = attempts.get(1 - index);
+            if (other != null) {
+                other.unsubscribe();
+            }
+            if (cancelPrimary) {
+                histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - primaryStartNanos));
+            }
+            subscriber.onNext(response);
+            subscriber.onCompleted();
+        }
+
+        private void closeServerError() {
+            Response response;
+            synchronized (this) {
+                response = serverError;
+                serverError = null;
+            }
+            if (response != null) {
+                response.body().close();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Reports the lifecycle of requests tagged with RequestMetrics to a RequestListener. DNS lookups are timed by wrapping
+ * the client's Dns, connection setup is measured between the application and the network interceptor and request and
+ * response bodies are wrapped to count the bytes transferred. A response served from the memory or disk cache never
+ * reaches the network interceptor, so it is reported by the application interceptor instead.
+ */
+class RequestInstrumentation {
+
+    private static final ThreadLocal<RequestMetrics> CURRENT = new ThreadLocal<>();
+
+    private final RequestListener listener;
+
+    private RequestInstrumentation(final RequestListener listener) {
+        this.listener = listener;
+    }
+
+    static OkHttpClient instrument(final OkHttpClient client, final RequestListener listener) {
+        if (listener == RequestListener.NONE) {
+            return client;
+        }
+        RequestInstrumentation instrumentation = new RequestInstrumentation(listener);
+        Dns dns = client.dns();
+        return client.newBuilder()
+                .dns(hostname -> instrumentation.lookup(dns, hostname))
+                .addInterceptor(instrumentation::interceptApplication)
+                .addNetworkInterceptor(instrumentation::interceptNetwork)
+                .build();
+    }
+
+    private List<InetAddress> lookup(final Dns dns, final String hostname) throws UnknownHostException {
+        long start = System.nanoTime();
+        try {
+            return dns.lookup(hostname);
+        } finally {
+            RequestMetrics metrics = CURRENT.get();
+            if (metrics != null) {
+                metrics.dnsResolved(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private Response interceptApplication(final Interceptor.Chain chain) throws IOException {
+        RequestMetrics metrics = metricsOf(chain.request());
+        if (metrics == null) {
+            return chain.proceed(chain.request());
+        }
+        metrics.connectionStart();
+        CURRENT.set(metrics);
+        try {
+            Response response = chain.proceed(chain.request());
+            if (metrics.firstByteNanos() >= 0) {
+                return response;
+            }
+            // served from a cache without reaching the network interceptor
+            metrics.firstByte(response.code());
+            listener.onFirstByte(metrics);
+            return response.newBuilder()
+                    .body(new CountingResponseBody(response.body(), metrics))
+                    .build();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private Response interceptNetwork(final Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        RequestMetrics metrics = metricsOf(request);
+        if (metrics == null) {
+            return chain.proceed(request);
+        }
+        Connection connection = chain.connection();
+        metrics.connectionAcquired(connection != null && connection.handshake() != null);
+        listener.onConnectionAcquired(metrics);
+
+        if (request.body() != null) {
+            request = request.newBuilder()
+                    .method(request.method(), new CountingRequestBody(request.body(), metrics))
+                    .build();
+        } else {
+            metrics.requestSent(0);
+            listener.onRequestSent(metrics);
+        }
+        Response response = chain.proceed(request);
+        metrics.firstByte(response.code());
+        listener.onFirstByte(metrics);
+        return response.newBuilder()
+                .body(new CountingResponseBody(response.body(), metrics))
+                .build();
+    }
+
+    private static RequestMetrics metricsOf(final Request request) {
+        Object tag = request.tag();
+        return tag instanceof RequestMetrics ? (RequestMetrics) tag : null;
+    }
+
+    private class CountingRequestBody extends RequestBody {
+
+        private final RequestBody delegate;
+        private final RequestMetrics metrics;
+
+        CountingRequestBody(final RequestBody delegate, final RequestMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            long[] bytes = {0};
+            BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+                @Override
+                public void write(Buffer source, long byteCount) throws IOException {
+                    super.write(source, byteCount);
+                    bytes[0] += byteCount;
+                }
+            });
+            delegate.writeTo(countingSink);
+            countingSink.emit();
+            metrics.requestSent(bytes[0]);
+            listener.onRequestSent(metrics);
+        }
+    }
+
+    private class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final RequestMetrics metrics;
+        private final BufferedSource source;
+        private boolean completed = false;
+
+        CountingResponseBody(final ResponseBody delegate, final RequestMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        fail(e);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        complete();
+                    } else {
+                        metrics.responseBytesRead(read);
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    complete();
+                    super.close();
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+
+        private void complete() {
+            if (!completed) {
+                completed = true;
+                metrics.complete();
+                listener.onBodyComplete(metrics);
+            }
+        }
+
+        private void fail(final IOException e) {
+            if (!completed) {
+                completed = true;
+                listener.onError(metrics, e);
+            }
+        }
+    }
+}
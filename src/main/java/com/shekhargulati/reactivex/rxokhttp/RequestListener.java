@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+/**
+ * Listener notified at the lifecycle points of every request made by an RxHttpClient. All callbacks receive the
+ * RequestMetrics of the request, which carries the endpoint, the timings and the byte counts collected so far.
+ * Callbacks are invoked on the thread executing the request or reading its body, so implementations must be thread
+ * safe and should return quickly.
+ */
+public interface RequestListener {
+
+    /**
+     * Listener that ignores all events. When it is configured the client does not instrument requests at all.
+     */
+    RequestListener NONE = new RequestListener() {
+    };
+
+    default void onRequestStart(RequestMetrics metrics) {
+    }
+
+    /**
+     * Called once a connection has been obtained, with the time spent on DNS and on connecting, including the TLS
+     * handshake, when a new connection had to be established.
+     */
+    default void onConnectionAcquired(RequestMetrics metrics) {
+    }
+
+    default void onRequestSent(RequestMetrics metrics) {
+    }
+
+    /**
+     * Called when the response headers have been received.
+     */
+    default void onFirstByte(RequestMetrics metrics) {
+    }
+
+    /**
+     * Called when the response body has been read completely or was closed before that.
+     */
+    default void onBodyComplete(RequestMetrics metrics) {
+    }
+
+    default void onError(RequestMetrics metrics, Throwable error) {
+    }
+
+    /**
+     * Called when an adaptive ConcurrencyLimit changed the limit of a group of requests, which is either the whole
+     * client or an endpoint.
+     */
+    default void onLimitChanged(String group, int limit) {
+    }
+
+    /**
+     * Called when a request was rejected because the concurrency limit of its group was reached.
+     */
+    default void onRequestRejected(String group, int limit) {
+    }
+}
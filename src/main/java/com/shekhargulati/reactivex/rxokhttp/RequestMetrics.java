@@ -0,0 +1,170 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Timings and byte counts of a single request. All durations are in nanoseconds, timestamps are measured from the
+ * start of the request and are -1 until the lifecycle point has been reached.
+ */
+public class RequestMetrics {
+
+    private final String endpoint;
+    private final String method;
+    private final HttpUrl url;
+    private final long startNanos;
+
+    private volatile long connectionStartNanos = -1;
+    private volatile long dnsNanos = -1;
+    private volatile long connectNanos = -1;
+    private volatile boolean connectionReused;
+    private volatile boolean tls;
+    private volatile long requestBytes;
+    private volatile long requestSentNanos = -1;
+    private volatile int code = -1;
+    private volatile long firstByteNanos = -1;
+    private volatile long responseBytes;
+    private volatile long completeNanos = -1;
+
+    RequestMetrics(final String endpoint, final String method, final HttpUrl url) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.url = url;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return endpoint as passed to the client, before path and query parameters are resolved
+     */
+    public String endpoint() {
+        return endpoint;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public HttpUrl url() {
+        return url;
+    }
+
+    public long dnsNanos() {
+        return dnsNanos;
+    }
+
+    /**
+     * @return time spent connecting, including the TLS handshake, or 0 when a pooled connection was reused
+     */
+    public long connectNanos() {
+        return connectNanos;
+    }
+
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    public boolean isTls() {
+        return tls;
+    }
+
+    public long requestBytes() {
+        return requestBytes;
+    }
+
+    public long requestSentNanos() {
+        return requestSentNanos;
+    }
+
+    /**
+     * @return HTTP status code of the response or -1 when no response has been received
+     */
+    public int code() {
+        return code;
+    }
+
+    public long firstByteNanos() {
+        return firstByteNanos;
+    }
+
+    public long responseBytes() {
+        return responseBytes;
+    }
+
+    public long completeNanos() {
+        return completeNanos;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    void connectionStart() {
+        connectionStartNanos = System.nanoTime();
+        dnsNanos = -1;
+    }
+
+    void dnsResolved(final long nanos) {
+        dnsNanos = nanos;
+    }
+
+    void connectionAcquired(final boolean tls) {
+        this.connectionReused = dnsNanos < 0;
+        this.tls = tls;
+        long acquireNanos = connectionStartNanos < 0 ? 0 : System.nanoTime() - connectionStartNanos;
+        this.connectNanos = connectionReused ? 0 : Math.max(0, acquireNanos - dnsNanos);
+    }
+
+    void requestSent(final long bytes) {
+        requestBytes = bytes;
+        requestSentNanos = elapsedNanos();
+    }
+
+    void firstByte(final int code) {
+        this.code = code;
+        firstByteNanos = elapsedNanos();
+    }
+
+    void responseBytesRead(final long bytes) {
+        responseBytes += bytes;
+    }
+
+    void complete() {
+        completeNanos = elapsedNanos();
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics{" +
+                "method=" + method +
+                ", endpoint='" + endpoint + '\'' +
+                ", code=" + code +
+                ", requestBytes=" + requestBytes +
+                ", responseBytes=" + responseBytes +
+                ", firstByteNanos=" + firstByteNanos +
+                ", completeNanos=" + completeNanos +
+                '}';
+    }
+}
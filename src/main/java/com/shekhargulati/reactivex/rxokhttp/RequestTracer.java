@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traces a sample of the requests made by a client as structured key=value events logged at DEBUG level to the
+ * {@code com.shekhargulati.reactivex.rxokhttp.RequestTracer} logger. Tracing is disabled by default; when it is
+ * disabled or DEBUG is not enabled for the logger, requests are not traced and nothing is allocated for them.
+ */
+public class RequestTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static final RequestTracer DISABLED = new RequestTracer(0);
+    private static final RequestTracer ALL = new RequestTracer(1);
+
+    private final double sampleRate;
+
+    RequestTracer(final double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public static RequestTracer disabled() {
+        return DISABLED;
+    }
+
+    public static RequestTracer all() {
+        return ALL;
+    }
+
+    /**
+     * @param sampleRate fraction of requests to trace, between 0 and 1
+     */
+    public static RequestTracer sampled(final double sampleRate) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+        }
+        return new RequestTracer(sampleRate);
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Decides whether the next request is traced.
+     */
+    boolean sample() {
+        return sampleRate > 0
+                && logger.isDebugEnabled()
+                && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    void requestStarted(final String endpoint, final Request request) {
+        logger.debug("event=request_start method={} endpoint={} url={}", request.method(), endpoint, request.url());
+    }
+
+    void responseReceived(final Request request, final Response response, final long startNanos) {
+        logger.debug("event=response method={} url={} code={} elapsed_ms={}",
+                request.method(), request.url(), response.code(), elapsedMillis(startNanos));
+    }
+
+    void requestFailed(final Request request, final Throwable error, final long startNanos) {
+        logger.debug("event=request_failed method={} url={} elapsed_ms={}",
+                request.method(), request.url(), elapsedMillis(startNanos), error);
+    }
+
+    private static long elapsedMillis(final long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
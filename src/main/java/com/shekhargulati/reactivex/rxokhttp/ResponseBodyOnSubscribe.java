@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.shekhargulati.reactivex.rxokhttp.functions.IoFunction;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSource;
+import rx.Observer;
+import rx.observables.SyncOnSubscribe;
+
+import java.io.IOException;
+
+/**
+ * Emits the body of a Response as a stream of values read from its BufferedSource. A value is only read when the
+ * subscriber has requested one, so a slow consumer never causes more than a single read to be buffered. The response
+ * body is closed when the stream completes, fails or is unsubscribed. A completed body is closed before the completion
+ * is signalled, so its connection is back in the pool by the time the call is cancelled on unsubscribe.
+ * <p>
+ * The stream completes when the source is exhausted or when the reader returns null, which lets readers of framed
+ * formats signal the end of the content before the end of the body.
+ *
+ * @param <T> type of the values read from the body
+ */
+class ResponseBodyOnSubscribe<T> extends SyncOnSubscribe<BufferedSource, T> {
+
+    private final Response response;
+    private final IoFunction<BufferedSource, T> reader;
+
+    ResponseBodyOnSubscribe(final Response response, final IoFunction<BufferedSource, T> reader) {
+        this.response = response;
+        this.reader = reader;
+    }
+
+    /**
+     * Reader that detaches whatever is currently buffered in the source into a new Buffer. Segments are moved rather
+     * than copied so emitted Buffers are safe to hand over to another thread.
+     */
+    static IoFunction<BufferedSource, Buffer> bufferedChunk() {
+        return source -> {
+            Buffer chunk = new Buffer();
+            source.read(chunk, source.buffer().size());
+            return chunk;
+        };
+    }
+
+    @Override
+    protected BufferedSource generateState() {
+        return response.body().source();
+    }
+
+    @Override
+    protected BufferedSource next(BufferedSource source, Observer<? super T> observer) {
+        try {
+            T value = source.exhausted() ? null : reader.apply(source);
+            if (value == null) {
+                // closed here, on the reading thread, before completing: once the downstream unsubscribes the call is
+                // cancelled, which would close a connection still holding the end of the body
+                response.body().close();
+                observer.onCompleted();
+            } else {
+                observer.onNext(value);
+            }
+        } catch (IOException e) {
+            observer.onError(new ServiceException(e));
+        }
+        return source;
+    }
+
+    @Override
+    protected void onUnsubscribe(BufferedSource source) {
+        response.body().close();
+    }
+}
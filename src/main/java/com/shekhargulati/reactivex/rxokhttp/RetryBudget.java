@@ -0,0 +1,62 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client wide allowance of retries. Every request deposits a fraction of a retry and every retry withdraws a whole
+ * one, so retries can never exceed that fraction of the traffic for long. The balance starts at, and is capped to, a
+ * small reserve so that a client making few requests can still retry. Hedged requests are limited the same way.
+ */
+class RetryBudget {
+
+    private static final long RETRY_COST = 1000;
+    private static final long RESERVE = 10 * RETRY_COST;
+
+    private final long deposit;
+    private final AtomicLong balance = new AtomicLong(RESERVE);
+
+    RetryBudget(final double ratio) {
+        this.deposit = (long) (ratio * RETRY_COST);
+    }
+
+    void deposit() {
+        if (deposit > 0 && balance.get() < RESERVE) {
+            balance.accumulateAndGet(deposit, (current, amount) -> Math.min(RESERVE, current + amount));
+        }
+    }
+
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - RETRY_COST));
+        return true;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Response;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policy used to retry requests that failed with an I/O error or a retryable status code. Delays between attempts grow
+ * exponentially and are randomized with full jitter; a Retry-After header sent with the response takes precedence.
+ * Retries are additionally limited by a client wide budget, a fraction of the requests made, so that an outage does
+ * not multiply the load on the server.
+ * <p>
+ * By default only idempotent methods are retried.
+ */
+public class RetryPolicy {
+
+    private static final Set<String> IDEMPOTENT_METHODS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS", "TRACE")));
+
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Set<Integer> retryableStatusCodes;
+    private final double budgetRatio;
+    private final boolean retryNonIdempotent;
+
+    private RetryPolicy(final int maxAttempts, final Duration initialBackoff, final Duration maxBackoff, final Set<Integer> retryableStatusCodes, final double budgetRatio, final boolean retryNonIdempotent) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retryableStatusCodes = Collections.unmodifiableSet(retryableStatusCodes);
+        this.budgetRatio = budgetRatio;
+        this.retryNonIdempotent = retryNonIdempotent;
+    }
+
+    /**
+     * @return policy that never retries
+     */
+    public static RetryPolicy none() {
+        return defaultPolicy().maxAttempts(1);
+    }
+
+    /**
+     * @return policy making up to 3 attempts, backing off from 100ms up to 10s, retrying 429, 502, 503 and 504
+     * responses and limiting retries to 10% of the requests
+     */
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(10), new HashSet<>(Arrays.asList(429, 502, 503, 504)), 0.1, false);
+    }
+
+    /**
+     * @param maxAttempts total number of attempts including the first one
+     * @return copy of this policy with the maximum number of attempts
+     */
+    public RetryPolicy maxAttempts(final int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, retryableStatusCodes, budgetRatio, retryNonIdempotent);
+    }
+
+    /**
+     * @param initialBackoff upper bound of the delay before the first retry
+     * @param maxBackoff     upper bound of the delay before any retry, longer Retry-After values are not waited for
+     * @return copy of this policy with the backoff bounds
+     */
+    public RetryPolicy backoff(final Duration initialBackoff, final Duration maxBackoff) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, retryableStatusCodes, budgetRatio, retryNonIdempotent);
+    }
+
+    /**
+     * @return copy of this policy that retries responses with exactly the given status codes
+     */
+    public RetryPolicy retryOn(final Integer... statusCodes) {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, new HashSet<>(Arrays.asList(statusCodes)), budgetRatio, retryNonIdempotent);
+    }
+
+    /**
+     * @param budgetRatio retries allowed per request made, e.g. 0.1 allows one retry for every ten requests
+     * @return copy of this policy with the retry budget
+     */
+    public RetryPolicy budget(final double budgetRatio) {
+        if (budgetRatio < 0) {
+            throw new IllegalArgumentException("budgetRatio can't be negative");
+        }
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, retryableStatusCodes, budgetRatio, retryNonIdempotent);
+    }
+
+    /**
+     * @return copy of this policy that also retries non idempotent methods such as POST
+     */
+    public RetryPolicy retryNonIdempotent() {
+        return new RetryPolicy(maxAttempts, initialBackoff, maxBackoff, retryableStatusCodes, budgetRatio, true);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public boolean isRetryNonIdempotent() {
+        return retryNonIdempotent;
+    }
+
+    boolean isRetryable(final String method) {
+        return maxAttempts > 1 && (retryNonIdempotent || IDEMPOTENT_METHODS.contains(method));
+    }
+
+    boolean isRetryable(final int statusCode) {
+        return retryableStatusCodes.contains(statusCode);
+    }
+
+    /**
+     * @param attempt number of attempts made so far
+     * @return randomized delay before the next attempt
+     */
+    long backoffMillis(final int attempt) {
+        long ceiling = initialBackoff.toMillis() << Math.min(attempt - 1, 30);
+        ceiling = Math.min(ceiling < 0 ? Long.MAX_VALUE : ceiling, maxBackoff.toMillis());
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * @return delay requested by the Retry-After header of the response, or -1 when it has none
+     */
+    static long retryAfterMillis(final Response response) {
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+}
@@ -34,8 +34,6 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.shekhargulati.reactivex.rxokhttp.ClientConfig.defaultConfig;
 
@@ -72,24 +70,30 @@ public interface RxHttpClient {
     }
 
     static RxHttpClient newUnixSocketRxClient(final String unixSocketPath) {
-        return new OkHttpUnixSocketRxHttpClient(unixSocketPath);
+        return newUnixSocketRxClient(unixSocketPath, defaultConfig());
+    }
+
+    static RxHttpClient newUnixSocketRxClient(final String unixSocketPath, ClientConfig clientConfig) {
+        return new OkHttpUnixSocketRxHttpClient(unixSocketPath, clientConfig);
     }
 
 
     static HttpUrl fullEndpointUrl(String baseApiUrl, String endpoint, QueryParameter... queryParameters) throws IllegalArgumentException {
-        baseApiUrl = Optional.ofNullable(baseApiUrl)
-                .filter(e -> e.trim().length() > 0)
-                .map(e -> e.endsWith("/") ? e.substring(0, e.lastIndexOf("/")) : e)
-                .orElseThrow(() -> new IllegalArgumentException("baseApiUrl can't be null or empty"));
-        endpoint = Optional.ofNullable(endpoint)
+        final HttpUrl baseUrl = Optional.ofNullable(baseApiUrl)
                 .filter(e -> e.trim().length() > 0)
-                .map(e -> e.startsWith("/") ? e : "/" + e)
-                .orElseThrow(() -> new IllegalArgumentException("endpoint can't be null or empty"));
-        String queryString = Optional.ofNullable(queryParameters).map(qps -> Stream.of(qps).map(qp -> String.format("%s=%s", qp.param(), qp.value())).collect(Collectors.joining("&", "?", ""))).orElse("");
-        queryString = queryString.endsWith("?") ? "" : queryString;
-        return HttpUrl.parse(baseApiUrl + endpoint + queryString);
+                .map(e -> HttpUrl.parse(e.trim()))
+                .orElseThrow(() -> new IllegalArgumentException("baseApiUrl can't be null, empty or invalid"));
+        return EndpointTemplate.resolve(baseUrl, endpoint, queryParameters);
     }
 
+    /**
+     * Starts building a request of any method, with its headers, query parameters, body and per request options,
+     * which the other methods of this interface are shortcuts for.
+     *
+     * @return builder of a single request
+     */
+    RequestBuilder request();
+
     /**
      * This method makes an HTTP GET request and return response body as String of Observable
      * The returned Observable will only have a single element.
@@ -168,14 +172,68 @@ public interface RxHttpClient {
      */
     <R> Observable<R> get(String endpoint, ResponseTransformer<R> transformer, QueryParameter... queryParameters);
 
+    /**
+     * This method makes an HTTP GET request to the endpoint template expanded with the path variables, and applies the
+     * transformer to the response body. The template is used as the endpoint name in metrics, circuit breakers and
+     * concurrency limits, so all the expansions of a template share them.
+     *
+     * @param endpoint        Endpoint template at which to make the GET call
+     * @param pathVariables   Values of the path variables of the template
+     * @param headers         Http headers that you want to pass along
+     * @param transformer     Transformer that converts response body to R
+     * @param queryParameters Query parameters that will be use to build the final url
+     * @param <R>             type of the result
+     * @return Observable with single R value
+     */
+    <R> Observable<R> get(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, StringResponseTransformer<R> transformer, QueryParameter... queryParameters);
+
+    /**
+     * This method makes an HTTP GET request to an endpoint returning a JSON array and emits every element of the array as
+     * soon as it has been received. Only a single element is held in memory at a time, so it should be preferred over
+     * the StringResponseToCollectionTransformer variant for large listings.
+     *
+     * @param endpoint           Endpoint at which to make the GET call
+     * @param headers            HTTP headers to be sent along with the request
+     * @param elementTransformer function to convert the JSON of a single array element into some other domain object
+     * @param queryParameters    Query parameters that will be use to build the final url
+     * @param <R>                type to convert to
+     * @return Observable with one R value per array element
+     */
+    <R> Observable<R> getJsonArrayStream(String endpoint, Map<String, String> headers, StringResponseTransformer<R> elementTransformer, QueryParameter... queryParameters);
+
     Observable<String> getResponseStream(String endpoint, QueryParameter... queryParameters);
 
     Observable<String> getResponseStream(String endpoint, Map<String, String> headers, QueryParameter... queryParameters);
 
     <T> Observable<T> getResponseStream(String endpoint, Map<String, String> headers, StringResponseTransformer<T> transformer, QueryParameter... queryParameters);
 
+    /**
+     * This method makes an HTTP GET request and splits the streamed response body into records separated by the delimiter.
+     * Every record is converted using the StringResponseTransformer and emitted as soon as it has been received completely.
+     *
+     * @param endpoint        Endpoint at which to make the GET call
+     * @param headers         HTTP headers to be sent along with the request
+     * @param delimiter       delimiter that separates records in the response body
+     * @param transformer     function to convert a record into some other domain object
+     * @param queryParameters Query parameters that will be use to build the final url
+     * @param <T>             type returned by StringResponseTransformer
+     * @return Observable with one value per record
+     */
+    <T> Observable<T> getResponseStream(String endpoint, Map<String, String> headers, Delimiter delimiter, StringResponseTransformer<T> transformer, QueryParameter... queryParameters);
+
     Observable<Buffer> getResponseBufferStream(String endpoint, QueryParameter... queryParameters);
 
+    /**
+     * This method makes an HTTP GET request to an endpoint returning a Docker multiplexed stream, like container logs,
+     * and emits one StreamFrame per frame in the response body.
+     *
+     * @param endpoint        Endpoint at which to make the GET call
+     * @param headers         HTTP headers to be sent along with the request
+     * @param queryParameters Query parameters that will be use to build the final url
+     * @return Observable with one StreamFrame per frame
+     */
+    Observable<StreamFrame> getResponseFrameStream(String endpoint, Map<String, String> headers, QueryParameter... queryParameters);
+
     <T> Observable<T> getResponseStream(String endpoint, StringResponseTransformer<T> transformer, QueryParameter... queryParameters);
 
     Observable<HttpStatus> getResponseHttpStatus(String endpointPath, QueryParameter... queryParameters);
@@ -198,6 +256,8 @@ public interface RxHttpClient {
 
     <R> Observable<R> post(String endpoint, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters);
 
+    <R> Observable<R> post(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, String postBody, ResponseTransformer<R> transformer, QueryParameter... queryParameters);
+
     Observable<String> postAndReceiveResponse(String endpoint, QueryParameter... queryParameters);
 
     Observable<String> postAndReceiveResponse(String endpoint, Map<String, String> headers, QueryParameter... queryParameters);
@@ -206,20 +266,55 @@ public interface RxHttpClient {
 
     Observable<String> postAndReceiveResponse(String endpoint, Map<String, String> headers, String postBody, Predicate<String> errorChecker, QueryParameter... queryParameters);
 
+    Observable<String> postAndReceiveResponse(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, Predicate<String> errorChecker, QueryParameter... queryParameters);
+
     Observable<String> postAndReceiveStream(String endpoint, String postBody, QueryParameter... queryParameters);
 
     Observable<String> postAndReceiveStream(String endpoint, Map<String, String> headers, String postBody, QueryParameter... queryParameters);
 
+    Observable<String> postAndReceiveStream(String endpoint, Map<String, String> headers, String postBody, Delimiter delimiter, QueryParameter... queryParameters);
+
+    /**
+     * This method makes an HTTP POST request to an endpoint returning a Docker multiplexed stream, like container attach,
+     * and emits one StreamFrame per frame in the response body.
+     *
+     * @param endpoint        Endpoint at which to make the POST call
+     * @param headers         HTTP headers to be sent along with the request
+     * @param postBody        JSON body of the request
+     * @param queryParameters Query parameters that will be use to build the final url
+     * @return Observable with one StreamFrame per frame
+     */
+    Observable<StreamFrame> postAndReceiveFrameStream(String endpoint, Map<String, String> headers, String postBody, QueryParameter... queryParameters);
+
     <R> Observable<R> postTarStream(String endpoint, Path pathToTarArchive, BufferTransformer<R> transformer);
 
     <R> Observable<R> postTarStream(String endpoint, Path pathToTarArchive, ResponseTransformer<R> transformer);
 
     Observable<HttpStatus> postTarStream(String endpoint, Path pathToTarArchive);
 
+    /**
+     * This method archives the directory as a tar while it is being uploaded, so no archive has to be built on disk
+     * before the request is sent. The response body is streamed as Buffers converted by the BufferTransformer.
+     *
+     * @param endpoint    Endpoint at which to make the POST call
+     * @param directory   directory to archive
+     * @param options     compression and ignore patterns used for the archive
+     * @param transformer function to convert response Buffers to R
+     * @param <R>         type to convert to
+     * @return Observable with one R value per received Buffer
+     */
+    <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, BufferTransformer<R> transformer);
+
+    <R> Observable<R> postTarStream(String endpoint, Path directory, TarOptions options, ResponseTransformer<R> transformer);
+
+    Observable<HttpStatus> postTarStream(String endpoint, Path directory, TarOptions options);
+
     Observable<HttpStatus> delete(final String endpoint, QueryParameter... queryParameters);
 
     Observable<HttpStatus> delete(final String endpoint, Map<String, String> headers, QueryParameter... queryParameters);
 
+    Observable<HttpStatus> delete(EndpointTemplate endpoint, Map<String, ?> pathVariables, Map<String, String> headers, QueryParameter... queryParameters);
+
     Observable<Response> head(final String endpoint, QueryParameter... queryParameters);
 
     Observable<Response> head(final String endpoint, Map<String, String> headers, QueryParameter... queryParameters);
@@ -28,6 +28,7 @@ public class ServiceException extends RuntimeException {
 
     private int code;
     private String httpMessage;
+    private String errorBody;
 
     public ServiceException(final String errorMessage, final int code, final String httpMessage) {
         super(errorMessage);
@@ -35,10 +36,40 @@ public class ServiceException extends RuntimeException {
         this.httpMessage = httpMessage;
     }
 
+    public ServiceException(final String errorMessage) {
+        super(errorMessage);
+    }
+
+    /**
+     * Creates an exception for an unsuccessful HTTP response. The message is only built when it is asked for.
+     */
+    public ServiceException(final int code, final String httpMessage) {
+        this(code, httpMessage, null);
+    }
+
+    /**
+     * Creates an exception for an unsuccessful HTTP response, carrying the beginning of the response body.
+     */
+    public ServiceException(final int code, final String httpMessage, final String errorBody) {
+        this.code = code;
+        this.httpMessage = httpMessage;
+        this.errorBody = errorBody;
+    }
+
     public ServiceException(Exception e) {
         super(e);
     }
 
+    @Override
+    public String getMessage() {
+        String message = super.getMessage();
+        if (message == null && code != 0) {
+            String statusMessage = "Service returned " + code + " with message " + httpMessage;
+            return errorBody == null ? statusMessage : statusMessage + ": " + errorBody;
+        }
+        return message;
+    }
+
     public int getCode() {
         return code;
     }
@@ -46,4 +77,11 @@ public class ServiceException extends RuntimeException {
     public String getHttpMessage() {
         return httpMessage;
     }
+
+    /**
+     * @return the captured beginning of the response body, or null when none was captured
+     */
+    public String getErrorBody() {
+        return errorBody;
+    }
 }
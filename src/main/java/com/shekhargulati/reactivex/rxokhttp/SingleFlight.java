@@ -0,0 +1,58 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import rx.Observable;
+import rx.functions.Action0;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Shares a single execution of an Observable between all subscribers that ask for the same key while it is in
+ * flight. The first subscriber starts the execution and later subscribers get its last value replayed, so executions
+ * are expected to emit a single value. The execution is unsubscribed from, cancelling its call, once all of its
+ * subscribers have unsubscribed. The key is evicted as soon as the execution terminates or is unsubscribed from, so
+ * the next subscriber after that starts a fresh one.
+ *
+ * @param <K> type of the key identifying identical executions
+ * @param <V> type of the shared values
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Observable<V>> inFlight = new ConcurrentHashMap<>();
+
+    Observable<V> execute(final K key, final Supplier<Observable<V>> execution) {
+        return Observable.defer(() -> inFlight.computeIfAbsent(key, k -> share(k, execution.get())));
+    }
+
+    private Observable<V> share(final K key, final Observable<V> execution) {
+        AtomicReference<Observable<V>> shared = new AtomicReference<>();
+        Action0 evict = () -> inFlight.remove(key, shared.get());
+        shared.set(execution.doOnTerminate(evict).doOnUnsubscribe(evict).replay(1).refCount());
+        return shared.get();
+    }
+}
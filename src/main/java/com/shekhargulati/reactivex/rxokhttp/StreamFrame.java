@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okio.Buffer;
+import okio.BufferedSource;
+
+import java.io.IOException;
+
+/**
+ * A single frame of a Docker multiplexed stream as returned by the attach and logs endpoints. Each frame starts with an
+ * 8 byte header, [STREAM_TYPE, 0, 0, 0, SIZE1, SIZE2, SIZE3, SIZE4], followed by SIZE bytes of payload written to the
+ * stream identified by STREAM_TYPE.
+ */
+public class StreamFrame {
+
+    static final int HEADER_SIZE = 8;
+
+    public enum StreamType {
+        STDIN, STDOUT, STDERR
+    }
+
+    private final StreamType type;
+    private final Buffer payload;
+
+    private StreamFrame(final StreamType type, final Buffer payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public static StreamFrame of(final StreamType type, final Buffer payload) {
+        return new StreamFrame(type, payload);
+    }
+
+    public StreamType type() {
+        return type;
+    }
+
+    /**
+     * Payload of the frame. The segments are moved out of the response source without copying, so reading the payload
+     * consumes it.
+     *
+     * @return payload of the frame
+     */
+    public Buffer payload() {
+        return payload;
+    }
+
+    /**
+     * Reads the next frame from the source.
+     *
+     * @param source source positioned at the start of a frame header
+     * @return the frame
+     * @throws IOException if the source ends in the middle of a frame or does not contain a multiplexed stream
+     */
+    static StreamFrame read(final BufferedSource source) throws IOException {
+        source.require(HEADER_SIZE);
+        int streamType = source.readByte();
+        if (streamType < 0 || streamType >= StreamType.values().length) {
+            throw new IOException(String.format("Unexpected stream type %d, response is not a multiplexed stream", streamType));
+        }
+        source.skip(3);
+        long size = source.readInt() & 0xffffffffL;
+        Buffer payload = new Buffer();
+        source.readFully(payload, size);
+        return new StreamFrame(StreamType.values()[streamType], payload);
+    }
+
+    @Override
+    public String toString() {
+        return "StreamFrame{" +
+                "type=" + type +
+                ", size=" + payload.size() +
+                '}';
+    }
+}
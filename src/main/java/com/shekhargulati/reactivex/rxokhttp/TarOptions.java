@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Options used when a directory is archived on the fly while it is uploaded.
+ */
+public class TarOptions {
+
+    private final boolean gzip;
+    private final List<String> ignorePatterns;
+
+    private TarOptions(final boolean gzip, final List<String> ignorePatterns) {
+        this.gzip = gzip;
+        this.ignorePatterns = Collections.unmodifiableList(ignorePatterns);
+    }
+
+    public static TarOptions defaultOptions() {
+        return new TarOptions(false, Collections.emptyList());
+    }
+
+    /**
+     * @return copy of these options that gzip compresses the archive
+     */
+    public TarOptions gzip() {
+        return new TarOptions(true, ignorePatterns);
+    }
+
+    /**
+     * Excludes paths from the archive. Patterns use the glob syntax of {@link java.nio.file.FileSystem#getPathMatcher}
+     * and are matched against the path relative to the archived directory. When a directory matches, nothing below it
+     * is archived.
+     *
+     * @param patterns glob patterns of the paths to exclude
+     * @return copy of these options with the patterns added
+     */
+    public TarOptions ignore(final String... patterns) {
+        List<String> allPatterns = new ArrayList<>(ignorePatterns);
+        allPatterns.addAll(Arrays.asList(patterns));
+        return new TarOptions(gzip, allPatterns);
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    public List<String> getIgnorePatterns() {
+        return ignorePatterns;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Source;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * RequestBody that archives a directory as a tar while it is written to the connection, so archiving overlaps with the
+ * upload and no temporary archive is needed. Entries use the ustar format, names and symlink targets longer than 100
+ * bytes are written with GNU long name and long link entries and sizes that do not fit the octal field are base-256
+ * encoded. Exactly the size recorded in the header of a file is copied, so a file growing while it is archived can't
+ * corrupt the archive, and one shrinking fails the request.
+ */
+class TarRequestBody extends RequestBody {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final long MAX_OCTAL_SIZE = 077777777777L;
+    private static final String LONG_NAME = "././@LongLink";
+
+    private static final byte REGULAR = '0';
+    private static final byte SYMLINK = '2';
+    private static final byte DIRECTORY = '5';
+    private static final byte GNU_LONG_NAME = 'L';
+    private static final byte GNU_LONG_LINK = 'K';
+
+    private final Path directory;
+    private final MediaType contentType;
+    private final TarOptions options;
+    private final List<PathMatcher> ignoreMatchers;
+
+    TarRequestBody(final Path directory, final MediaType contentType, final TarOptions options) {
+        this.directory = directory;
+        this.contentType = contentType;
+        this.options = options;
+        FileSystem fileSystem = directory.getFileSystem();
+        this.ignoreMatchers = options.getIgnorePatterns().stream()
+                .map(pattern -> fileSystem.getPathMatcher("glob:" + pattern))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        if (options.isGzip()) {
+            // closing the gzip sink writes the gzip trailer, the connection sink itself must stay open
+            try (BufferedSink gzipSink = Okio.buffer(new GzipSink(new ForwardingSink(sink) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            }))) {
+                writeArchive(gzipSink);
+            }
+        } else {
+            writeArchive(sink);
+        }
+    }
+
+    private void writeArchive(final BufferedSink sink) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.equals(directory)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                Path relativePath = directory.relativize(dir);
+                if (isIgnored(relativePath)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                writeHeader(sink, entryName(relativePath) + "/", 0755, 0, attrs, DIRECTORY, "");
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path relativePath = directory.relativize(file);
+                if (isIgnored(relativePath)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                if (attrs.isSymbolicLink()) {
+                    writeHeader(sink, entryName(relativePath), 0777, 0, attrs, SYMLINK, Files.readSymbolicLink(file).toString());
+                } else if (attrs.isRegularFile()) {
+                    int mode = Files.isExecutable(file) ? 0755 : 0644;
+                    long size = attrs.size();
+                    writeHeader(sink, entryName(relativePath), mode, size, attrs, REGULAR, "");
+                    try (Source source = Okio.source(file.toFile())) {
+                        sink.write(source, size);
+                    } catch (EOFException e) {
+                        throw new IOException("File " + file + " became shorter than " + size + " bytes while it was archived", e);
+                    }
+                    pad(sink, size);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        sink.write(new byte[2 * BLOCK_SIZE]);
+    }
+
+    private boolean isIgnored(final Path relativePath) {
+        return ignoreMatchers.stream().anyMatch(matcher -> matcher.matches(relativePath));
+    }
+
+    private static String entryName(final Path relativePath) {
+        StringBuilder name = new StringBuilder();
+        for (Path element : relativePath) {
+            if (name.length() > 0) {
+                name.append('/');
+            }
+            name.append(element.toString());
+        }
+        return name.toString();
+    }
+
+    private static void writeHeader(BufferedSink sink, String name, int mode, long size, BasicFileAttributes attrs, byte type, String linkName) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] linkNameBytes = linkName.getBytes(StandardCharsets.UTF_8);
+        if (linkNameBytes.length > 100) {
+            writeLongNameEntry(sink, linkNameBytes, GNU_LONG_LINK);
+        }
+        if (nameBytes.length > 100) {
+            writeLongNameEntry(sink, nameBytes, GNU_LONG_NAME);
+        }
+        long mtime = attrs.lastModifiedTime().to(TimeUnit.SECONDS);
+        writeHeaderBlock(sink, nameBytes, mode, size, mtime, type, linkNameBytes);
+    }
+
+    /**
+     * Writes a GNU entry holding the NUL terminated name, or link name, of the entry that follows it.
+     */
+    private static void writeLongNameEntry(BufferedSink sink, byte[] name, byte type) throws IOException {
+        byte[] longName = new byte[name.length + 1];
+        System.arraycopy(name, 0, longName, 0, name.length);
+        writeHeaderBlock(sink, LONG_NAME.getBytes(StandardCharsets.UTF_8), 0644, longName.length, 0, type, new byte[0]);
+        sink.write(longName);
+        pad(sink, longName.length);
+    }
+
+    static void writeHeaderBlock(BufferedSink sink, byte[] name, int mode, long size, long mtime, byte type, byte[] linkName) throws IOException {
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, 100));
+        writeOctal(header, 100, 8, mode);
+        writeOctal(header, 108, 8, 0);
+        writeOctal(header, 116, 8, 0);
+        if (size > MAX_OCTAL_SIZE) {
+            header[124] = (byte) 0x80;
+            for (int i = 0; i < 8; i++) {
+                header[135 - i] = (byte) (size >>> (8 * i));
+            }
+        } else {
+            writeOctal(header, 124, 12, size);
+        }
+        writeOctal(header, 136, 12, mtime);
+        header[156] = type;
+        System.arraycopy(linkName, 0, header, 157, Math.min(linkName.length, 100));
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        writeOctal(header, 148, 7, checksum);
+        header[155] = ' ';
+        sink.write(header);
+    }
+
+    /**
+     * Writes the value as zero padded octal digits followed by a NUL terminator into the field.
+     */
+    private static void writeOctal(byte[] header, int offset, int length, long value) {
+        int digits = length - 1;
+        for (int i = digits - 1; i >= 0; i--) {
+            header[offset + i] = (byte) ('0' + (value & 7));
+            value >>>= 3;
+        }
+        header[offset + digits] = 0;
+    }
+
+    private static void pad(BufferedSink sink, long size) throws IOException {
+        int remainder = (int) (size % BLOCK_SIZE);
+        if (remainder > 0) {
+            sink.write(new byte[BLOCK_SIZE - remainder]);
+        }
+    }
+}
@@ -3,6 +3,12 @@ package com.shekhargulati.reactivex.rxokhttp.functions;
 import com.shekhargulati.reactivex.rxokhttp.QueryParameter;
 import okhttp3.HttpUrl;
 
+/**
+ * @deprecated the clients no longer build urls with a HttpUrlFunction, they expand an
+ * {@link com.shekhargulati.reactivex.rxokhttp.EndpointTemplate} against their base url instead. This interface is
+ * unused and will be removed.
+ */
+@Deprecated
 public interface HttpUrlFunction {
 
     HttpUrl apply(String baseApiUrl, String endpoint, QueryParameter... queryParameters);
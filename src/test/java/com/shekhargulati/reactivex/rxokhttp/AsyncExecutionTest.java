@@ -0,0 +1,109 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Subscription;
+import rx.observers.TestSubscriber;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Calls are enqueued on the Dispatcher of the client, so a call still running shows up in its running calls until it
+ * has completed or been cancelled.
+ */
+public class AsyncExecutionTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final Dispatcher dispatcher = new Dispatcher();
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setAsyncExecution(true)
+                .setDispatcher(dispatcher)
+                .createClientConfig());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldCompleteGetFromDispatcherThread() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        client.get("containers/json").subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertValue("[]");
+        assertThat(subscriber.getLastSeenThread().getName().startsWith("OkHttp"), is(true));
+    }
+
+    @Test
+    public void shouldStreamBody() throws Exception {
+        server.enqueue(new MockResponse().setChunkedBody("line 1\nline 2\nline 3\n", 5));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        client.request().get("containers/abc/logs").stream(Delimiter.NEWLINE).subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        assertThat(subscriber.getOnNextEvents(), equalTo(Arrays.asList("line 1", "line 2", "line 3")));
+    }
+
+    @Test
+    public void shouldCancelCallWaitingForResponseOnUnsubscribe() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        client.get("containers/json").subscribe(subscriber);
+        server.takeRequest(5, TimeUnit.SECONDS);
+        assertThat(dispatcher.runningCallsCount(), equalTo(1));
+        subscriber.unsubscribe();
+
+        awaitNoRunningCalls();
+        assertThat(subscriber.getOnErrorEvents().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldCancelCallStreamingBodyOnUnsubscribe() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append("line ").append(i).append('\n');
+        }
+        // the whole body would take more than 15 seconds to be sent
+        server.enqueue(new MockResponse().setBody(body.toString()).throttleBody(8, 200, TimeUnit.MILLISECONDS));
+        CountDownLatch firstLine = new CountDownLatch(1);
+
+        Subscription subscription = client.request().get("containers/abc/logs").stream(Delimiter.NEWLINE)
+                .subscribe(line -> firstLine.countDown(), e -> {
+                });
+        assertThat(firstLine.await(5, TimeUnit.SECONDS), is(true));
+        subscription.unsubscribe();
+
+        awaitNoRunningCalls();
+    }
+
+    private void awaitNoRunningCalls() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (dispatcher.runningCallsCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(dispatcher.runningCallsCount(), equalTo(0));
+    }
+}
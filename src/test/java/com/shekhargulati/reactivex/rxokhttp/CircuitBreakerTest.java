@@ -0,0 +1,137 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = 1_000_000;
+
+    private final CircuitBreaker breaker = new CircuitBreaker("localhost:80", CircuitBreakerPolicy.perHost()
+            .window(Duration.ofSeconds(10), 4)
+            .failureRateThreshold(0.5)
+            .recovery(Duration.ofMillis(50), 2));
+
+    @Test
+    public void shouldOpenWhenFailureRateIsReached() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            breaker.onResult(breaker.tryAcquire(), true, FAST);
+        }
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.CLOSED));
+
+        breaker.onResult(breaker.tryAcquire(), true, FAST);
+
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquire(), nullValue());
+    }
+
+    @Test
+    public void shouldNotOpenBelowFailureRate() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            breaker.onResult(breaker.tryAcquire(), i % 4 == 3, FAST);
+        }
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    public void shouldPermitOnlyHalfOpenProbesAfterOpenDuration() throws Exception {
+        open();
+        Thread.sleep(60);
+
+        assertThat(breaker.tryAcquire(), notNullValue());
+        assertThat(breaker.tryAcquire(), notNullValue());
+        assertThat(breaker.tryAcquire(), nullValue());
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void shouldCloseWhenAllProbesSucceed() throws Exception {
+        open();
+        Thread.sleep(60);
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        CircuitBreaker.Permit second = breaker.tryAcquire();
+
+        breaker.onResult(first, false, FAST);
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.HALF_OPEN));
+        breaker.onResult(second, false, FAST);
+
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.CLOSED));
+        assertThat(breaker.tryAcquire(), notNullValue());
+    }
+
+    @Test
+    public void shouldReopenWhenProbeFails() throws Exception {
+        open();
+        Thread.sleep(60);
+
+        breaker.onResult(breaker.tryAcquire(), true, FAST);
+
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.OPEN));
+        assertThat(breaker.tryAcquire(), nullValue());
+    }
+
+    @Test
+    public void shouldReopenWhenProbeIsSlow() throws Exception {
+        open();
+        Thread.sleep(60);
+
+        breaker.onResult(breaker.tryAcquire(), false, Duration.ofSeconds(11).toNanos());
+
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.OPEN));
+    }
+
+    @Test
+    public void shouldReturnProbeSlotWhenProbeIsCancelled() throws Exception {
+        open();
+        Thread.sleep(60);
+        CircuitBreaker.Permit first = breaker.tryAcquire();
+        breaker.tryAcquire();
+        assertThat(breaker.tryAcquire(), nullValue());
+
+        breaker.onCancel(first);
+
+        assertThat(breaker.tryAcquire(), notNullValue());
+        assertThat(breaker.tryAcquire(), nullValue());
+    }
+
+    @Test
+    public void shouldIgnoreResultOfCallPermittedBeforeCircuitOpened() throws Exception {
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        open();
+        Thread.sleep(60);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+
+        breaker.onResult(probe, false, FAST);
+        breaker.onResult(late, false, FAST);
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.HALF_OPEN));
+
+        breaker.onResult(late, true, FAST);
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.HALF_OPEN));
+    }
+
+    @Test
+    public void shouldNotReturnProbeSlotWhenCallPermittedBeforeCircuitOpenedIsCancelled() throws Exception {
+        CircuitBreaker.Permit late = breaker.tryAcquire();
+        open();
+        Thread.sleep(60);
+        breaker.tryAcquire();
+        breaker.tryAcquire();
+
+        breaker.onCancel(late);
+
+        assertThat(breaker.tryAcquire(), nullValue());
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(breaker.tryAcquire(), true, FAST);
+        }
+        assertThat(breaker.state(), equalTo(CircuitBreaker.State.OPEN));
+    }
+}
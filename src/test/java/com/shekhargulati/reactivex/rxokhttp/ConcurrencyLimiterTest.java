@@ -0,0 +1,167 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    @Test
+    public void shouldHoldSlotUntilBodyIsClosed() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1).queue(1));
+        TestSubscriber<Response> first = subscribe(limiter, call(200), RequestPriority.NORMAL);
+        List<String> started = new ArrayList<>();
+        TestSubscriber<Response> second = subscribe(limiter, call(200).doOnSubscribe(() -> started.add("second")), RequestPriority.NORMAL);
+
+        assertThat(limiter.inFlight(), equalTo(1));
+        assertThat(started.isEmpty(), equalTo(true));
+
+        first.getOnNextEvents().get(0).body().close();
+
+        assertThat(started, equalTo(Collections.singletonList("second")));
+        second.assertValueCount(1);
+        assertThat(limiter.inFlight(), equalTo(1));
+    }
+
+    @Test
+    public void shouldReleaseSlotWhenBodyIsReadToTheEnd() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1));
+        TestSubscriber<Response> subscriber = subscribe(limiter, call(200), RequestPriority.NORMAL);
+
+        subscriber.getOnNextEvents().get(0).body().source().readUtf8();
+
+        assertThat(limiter.inFlight(), equalTo(0));
+    }
+
+    @Test
+    public void shouldReleaseSlotWhenRequestIsUnsubscribed() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1));
+        TestSubscriber<Response> subscriber = subscribe(limiter, Observable.never(), RequestPriority.NORMAL);
+        assertThat(limiter.inFlight(), equalTo(1));
+
+        subscriber.unsubscribe();
+
+        assertThat(limiter.inFlight(), equalTo(0));
+    }
+
+    @Test
+    public void shouldReleaseSlotWhenCallFails() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1));
+
+        subscribe(limiter, Observable.error(new ServiceException(new IOException("reset"))), RequestPriority.NORMAL);
+
+        assertThat(limiter.inFlight(), equalTo(0));
+    }
+
+    @Test
+    public void shouldRejectRequestWhenQueueIsFull() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1).queue(1));
+        subscribe(limiter, call(200), RequestPriority.NORMAL);
+        subscribe(limiter, call(200), RequestPriority.NORMAL);
+
+        TestSubscriber<Response> rejected = subscribe(limiter, call(200), RequestPriority.NORMAL);
+
+        rejected.assertError(ConcurrencyLimitExceededException.class);
+    }
+
+    @Test
+    public void shouldNotStartRequestUnsubscribedWhileQueued() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1).queue(1));
+        TestSubscriber<Response> first = subscribe(limiter, call(200), RequestPriority.NORMAL);
+        List<String> started = new ArrayList<>();
+        TestSubscriber<Response> queued = subscribe(limiter, call(200).doOnSubscribe(() -> started.add("queued")), RequestPriority.NORMAL);
+
+        queued.unsubscribe();
+        first.getOnNextEvents().get(0).body().close();
+
+        assertThat(started.isEmpty(), equalTo(true));
+        assertThat(limiter.inFlight(), equalTo(0));
+        subscribe(limiter, call(200), RequestPriority.NORMAL).assertValueCount(1);
+    }
+
+    @Test
+    public void shouldStartQueuedRequestsInOrderOfPriority() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.fixed(1).queue(3));
+        TestSubscriber<Response> first = subscribe(limiter, call(200), RequestPriority.NORMAL);
+        List<RequestPriority> started = new ArrayList<>();
+        for (RequestPriority priority : new RequestPriority[]{RequestPriority.LOW, RequestPriority.NORMAL, RequestPriority.HIGH}) {
+            subscribe(limiter, call(200).doOnNext(response -> {
+                started.add(priority);
+                response.body().close();
+            }), priority);
+        }
+
+        first.getOnNextEvents().get(0).body().close();
+
+        assertThat(started, equalTo(Arrays.asList(RequestPriority.HIGH, RequestPriority.NORMAL, RequestPriority.LOW)));
+    }
+
+    @Test
+    public void shouldDecreaseAdaptiveLimitWhenRequestsAreDropped() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.adaptive(10, 5, 20).latencyTolerance(1_000_000));
+
+        for (int i = 0; i < 20; i++) {
+            subscribe(limiter, call(503), RequestPriority.NORMAL).getOnNextEvents().get(0).body().close();
+        }
+
+        assertThat(limiter.limit(), equalTo(5));
+    }
+
+    @Test
+    public void shouldDecreaseAdaptiveLimitOnIoErrors() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.adaptive(10, 1, 20).latencyTolerance(1_000_000));
+
+        subscribe(limiter, Observable.error(new ServiceException(new IOException("reset"))), RequestPriority.NORMAL);
+
+        assertThat(limiter.limit(), equalTo(9));
+    }
+
+    @Test
+    public void shouldIncreaseAdaptiveLimitWhileItIsUsed() throws Exception {
+        ConcurrencyLimiter limiter = limiter(ConcurrencyLimit.adaptive(2, 1, 20).latencyTolerance(1_000_000));
+        List<Response> open = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            open.add(subscribe(limiter, call(200), RequestPriority.NORMAL).getOnNextEvents().get(0));
+            if (open.size() == limiter.limit()) {
+                open.remove(0).body().close();
+            }
+        }
+
+        assertThat(limiter.limit() > 2, equalTo(true));
+    }
+
+    private static ConcurrencyLimiter limiter(final ConcurrencyLimit policy) {
+        return new ConcurrencyLimiter("test", policy, RequestListener.NONE, true);
+    }
+
+    private static TestSubscriber<Response> subscribe(final ConcurrencyLimiter limiter, final Observable<Response> call, final RequestPriority priority) {
+        TestSubscriber<Response> subscriber = new TestSubscriber<>();
+        // unsafeSubscribe, as a completed request must keep its slot until the body is closed
+        limiter.limit(call, priority).unsafeSubscribe(subscriber);
+        return subscriber;
+    }
+
+    private static Observable<Response> call(final int code) {
+        return Observable.defer(() -> Observable.just(new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/containers/json").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code)
+                .body(ResponseBody.create(null, "[]"))
+                .build()));
+    }
+}
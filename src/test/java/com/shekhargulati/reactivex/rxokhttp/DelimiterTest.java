@@ -0,0 +1,81 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DelimiterTest {
+
+    @Test
+    public void shouldSplitOnNewlineAndDropCarriageReturn() throws Exception {
+        assertThat(readAll(Delimiter.NEWLINE, "first\nsecond\r\nthird"), equalTo(Arrays.asList("first", "second", "third")));
+    }
+
+    @Test
+    public void shouldKeepEmptyRecords() throws Exception {
+        assertThat(readAll(Delimiter.NEWLINE, "first\n\nthird\n"), equalTo(Arrays.asList("first", "", "third")));
+    }
+
+    @Test
+    public void shouldSplitOnMultiByteDelimiter() throws Exception {
+        assertThat(readAll(Delimiter.of("||"), "a|b||c||"), equalTo(Arrays.asList("a|b", "c")));
+    }
+
+    @Test
+    public void shouldKeepCarriageReturnForOtherDelimiters() throws Exception {
+        assertThat(readAll(Delimiter.of(";"), "a\r;b"), equalTo(Arrays.asList("a\r", "b")));
+    }
+
+    @Test
+    public void shouldReuseNewlineDelimiter() throws Exception {
+        assertThat(Delimiter.of("\n"), sameInstance(Delimiter.NEWLINE));
+        assertThat(Delimiter.of(ByteString.encodeUtf8("\n")), sameInstance(Delimiter.NEWLINE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyDelimiter() throws Exception {
+        Delimiter.of("");
+    }
+
+    @Test
+    public void shouldStreamRecordsSplitAcrossReads() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("first||second||third").throttleBody(3, 10, TimeUnit.MILLISECONDS));
+        server.start();
+        try {
+            RxHttpClient client = RxHttpClient.newRxClient(server.url("/").toString());
+            TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+            client.getResponseStream("events", Collections.emptyMap(), Delimiter.of("||"), record -> record).subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertNoErrors();
+            subscriber.assertValues("first", "second", "third");
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static List<String> readAll(final Delimiter delimiter, final String body) throws IOException {
+        Buffer source = new Buffer().writeUtf8(body);
+        List<String> records = new ArrayList<>();
+        while (!source.exhausted()) {
+            records.add(delimiter.readRecord(source));
+        }
+        return records;
+    }
+}
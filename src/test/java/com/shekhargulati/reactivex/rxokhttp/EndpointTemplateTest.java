@@ -0,0 +1,96 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.HttpUrl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EndpointTemplateTest {
+
+    private static final HttpUrl BASE_URL = HttpUrl.parse("http://localhost:2375/");
+
+    @Test
+    public void shouldExpandPathVariables() throws Exception {
+        EndpointTemplate template = EndpointTemplate.of("/containers/{id}/json");
+
+        HttpUrl url = template.expand(BASE_URL, Collections.singletonMap("id", "abc123"));
+
+        assertThat(url.toString(), equalTo("http://localhost:2375/containers/abc123/json"));
+        assertThat(template.variables(), equalTo(Collections.singletonList("id")));
+    }
+
+    @Test
+    public void shouldEncodePathVariableAsSingleSegment() throws Exception {
+        HttpUrl url = EndpointTemplate.of("images/{name}/json")
+                .expand(BASE_URL, Collections.singletonMap("name", "registry:5000/busybox?tag=1"));
+
+        assertThat(url.pathSegments(), equalTo(Arrays.asList("images", "registry:5000/busybox?tag=1", "json")));
+        assertThat(url.query(), equalTo(null));
+    }
+
+    @Test
+    public void shouldAppendToPathOfBaseUrl() throws Exception {
+        HttpUrl url = EndpointTemplate.of("containers/json").expand(HttpUrl.parse("http://localhost:2375/v1.24/"));
+
+        assertThat(url.toString(), equalTo("http://localhost:2375/v1.24/containers/json"));
+    }
+
+    @Test
+    public void shouldKeepLiteralQueryAndAddQueryParameters() throws Exception {
+        HttpUrl url = EndpointTemplate.of("containers/json?all=1")
+                .expand(BASE_URL, QueryParameter.of("filters", "{\"status\":[\"running\"]}"), QueryParameter.of("size", null));
+
+        assertThat(url.queryParameter("all"), equalTo("1"));
+        assertThat(url.queryParameter("filters"), equalTo("{\"status\":[\"running\"]}"));
+        assertThat(url.queryParameterNames().contains("size"), equalTo(true));
+        assertThat(url.queryParameter("size"), equalTo(null));
+    }
+
+    @Test
+    public void shouldKeepTrailingSlash() throws Exception {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", "busybox");
+
+        assertThat(EndpointTemplate.of("images/{name}/").expand(BASE_URL, variables).toString(),
+                equalTo("http://localhost:2375/images/busybox/"));
+        assertThat(EndpointTemplate.of("build/?t=app").expand(BASE_URL).toString(),
+                equalTo("http://localhost:2375/build/?t=app"));
+        assertThat(EndpointTemplate.resolve(BASE_URL, "/v2/").toString(), equalTo("http://localhost:2375/v2/"));
+        assertThat(EndpointTemplate.resolve(BASE_URL, "v2").toString(), equalTo("http://localhost:2375/v2"));
+    }
+
+    @Test
+    public void shouldDropEmptySegmentsInsidePath() throws Exception {
+        assertThat(EndpointTemplate.resolve(BASE_URL, "/containers//json").toString(),
+                equalTo("http://localhost:2375/containers/json"));
+    }
+
+    @Test
+    public void shouldResolvePlainEndpointLikeTemplate() throws Exception {
+        QueryParameter all = QueryParameter.of("all", true);
+
+        assertThat(EndpointTemplate.resolve(BASE_URL, "containers/json", all),
+                equalTo(EndpointTemplate.of("containers/json").expand(BASE_URL, all)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMissingPathVariable() throws Exception {
+        EndpointTemplate.of("containers/{id}/json").expand(BASE_URL, Collections.emptyMap());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPathVariableThatIsNotWholeSegment() throws Exception {
+        EndpointTemplate.of("containers/id-{id}/json");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEmptyTemplate() throws Exception {
+        EndpointTemplate.of(" ");
+    }
+}
@@ -0,0 +1,76 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class HttpHeadersTest {
+
+    @Test
+    public void shouldReturnEmptyHeadersForNullOrEmptyMap() throws Exception {
+        assertThat(HttpHeaders.of(null), sameInstance(HttpHeaders.empty()));
+        assertThat(HttpHeaders.of(Collections.emptyMap()), sameInstance(HttpHeaders.empty()));
+        assertThat(HttpHeaders.empty().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldBuildHeadersFromMap() throws Exception {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Accept", "application/json");
+        headers.put("X-Registry-Auth", "token");
+
+        HttpHeaders httpHeaders = HttpHeaders.of(headers);
+
+        assertThat(httpHeaders.get("accept"), equalTo("application/json"));
+        assertThat(httpHeaders.get("X-Registry-Auth"), equalTo("token"));
+        assertThat(httpHeaders.get("Authorization"), nullValue());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectHeaderValueWithNewLine() throws Exception {
+        HttpHeaders.of("X-Test", "a\r\nX-Injected: b");
+    }
+
+    @Test
+    public void shouldReplaceValuesWhenSettingHeader() throws Exception {
+        HttpHeaders base = HttpHeaders.of("Accept", "text/plain");
+
+        HttpHeaders updated = base.with("Accept", "application/json");
+
+        assertThat(updated.values("Accept"), equalTo(Collections.singletonList("application/json")));
+        assertThat(base.get("Accept"), equalTo("text/plain"));
+    }
+
+    @Test
+    public void shouldReplaceHeadersOfSameNameWhenCombining() throws Exception {
+        HttpHeaders defaults = HttpHeaders.of("Accept", "text/plain").with("User-Agent", "rx-okhttp");
+        HttpHeaders request = HttpHeaders.of("accept", "application/json");
+
+        HttpHeaders combined = defaults.withAll(request);
+
+        assertThat(combined.values("Accept"), equalTo(Collections.singletonList("application/json")));
+        assertThat(combined.get("User-Agent"), equalTo("rx-okhttp"));
+        assertThat(defaults.withAll(HttpHeaders.empty()), sameInstance(defaults));
+        assertThat(HttpHeaders.empty().withAll(request), sameInstance(request));
+    }
+
+    @Test
+    public void shouldCompareHeadersByNamesAndValues() throws Exception {
+        HttpHeaders first = HttpHeaders.of("Accept", "application/json").with("X-Test", "1");
+        HttpHeaders second = HttpHeaders.of(new LinkedHashMap<>(Collections.singletonMap("Accept", "application/json"))).with("X-Test", "1");
+
+        assertThat(first, equalTo(second));
+        assertThat(first.hashCode(), equalTo(second.hashCode()));
+        assertThat(first.equals(first.with("X-Test", "2")), is(false));
+        assertThat(first.names().containsAll(Arrays.asList("Accept", "X-Test")), is(true));
+    }
+}
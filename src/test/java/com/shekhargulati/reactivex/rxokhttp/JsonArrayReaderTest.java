@@ -0,0 +1,104 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class JsonArrayReaderTest {
+
+    @Test
+    public void shouldReadElementsOfArray() throws Exception {
+        assertThat(readAll("[{\"Id\":\"a\"}, {\"Id\":\"b\"}, 3, true, null]"),
+                equalTo(Arrays.asList("{\"Id\":\"a\"}", "{\"Id\":\"b\"}", "3", "true", "null")));
+    }
+
+    @Test
+    public void shouldReadNestedArraysAndObjectsAsOneElement() throws Exception {
+        assertThat(readAll("[[1,[2,3]],{\"a\":[4,{\"b\":5}]}]"),
+                equalTo(Arrays.asList("[1,[2,3]]", "{\"a\":[4,{\"b\":5}]}")));
+    }
+
+    @Test
+    public void shouldNotInterpretBracketsAndCommasInStrings() throws Exception {
+        assertThat(readAll("[\"a,b]\", {\"c\":\"}{[\"}]"),
+                equalTo(Arrays.asList("\"a,b]\"", "{\"c\":\"}{[\"}")));
+    }
+
+    @Test
+    public void shouldHandleEscapedQuotesAndBackslashesInStrings() throws Exception {
+        assertThat(readAll("[\"say \\\"]\\\"\", \"c:\\\\\", \"x\"]"),
+                equalTo(Arrays.asList("\"say \\\"]\\\"\"", "\"c:\\\\\"", "\"x\"")));
+    }
+
+    @Test
+    public void shouldReadNoElementsOfEmptyArray() throws Exception {
+        assertThat(readAll("  [ \n ]  "), equalTo(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void shouldSkipWhitespaceAroundElements() throws Exception {
+        assertThat(readAll("\n[\n  {\"a\":1} ,\n  {\"b\":2}\n]\n"), equalTo(Arrays.asList("{\"a\":1}", "{\"b\":2}")));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldFailOnTruncatedArray() throws Exception {
+        readAll("[{\"a\":1},{\"b\":");
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldFailOnTruncatedString() throws Exception {
+        readAll("[\"abc");
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldFailWhenBodyIsNotAnArray() throws Exception {
+        readAll("{\"a\":1}");
+    }
+
+    @Test
+    public void shouldUseNewReaderForEverySubscription() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("[1,2]"));
+        server.enqueue(new MockResponse().setBody("[1,2]"));
+        server.start();
+        try {
+            RxHttpClient client = RxHttpClient.newRxClient(server.url("/").toString());
+            Observable<String> elements = client.getJsonArrayStream("containers/json", Collections.emptyMap(), body -> body);
+
+            for (int i = 0; i < 2; i++) {
+                TestSubscriber<String> subscriber = new TestSubscriber<>();
+                elements.subscribe(subscriber);
+                subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+                subscriber.assertNoErrors();
+                subscriber.assertValues("1", "2");
+            }
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static List<String> readAll(final String json) throws IOException {
+        Buffer source = new Buffer().writeUtf8(json);
+        JsonArrayReader reader = new JsonArrayReader();
+        List<String> elements = new ArrayList<>();
+        String element;
+        while ((element = reader.readElement(source)) != null) {
+            elements.add(element);
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,130 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class MemoryResponseCacheTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final AtomicInteger firstBytes = new AtomicInteger();
+    private final AtomicInteger completions = new AtomicInteger();
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setMemoryCacheSize(1024 * 1024)
+                .setRequestListener(new RequestListener() {
+                    @Override
+                    public void onFirstByte(RequestMetrics metrics) {
+                        firstBytes.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onBodyComplete(RequestMetrics metrics) {
+                        completions.incrementAndGet();
+                    }
+                })
+                .createClientConfig());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldServeFreshResponseFromMemory() throws Exception {
+        server.enqueue(new MockResponse().setBody("v1").addHeader("Cache-Control", "max-age=60"));
+
+        assertThat(get(Collections.emptyMap()), equalTo("v1"));
+        assertThat(get(Collections.emptyMap()), equalTo("v1"));
+
+        assertThat(server.getRequestCount(), equalTo(1));
+    }
+
+    @Test
+    public void shouldReportMemoryHitsToRequestListener() throws Exception {
+        server.enqueue(new MockResponse().setBody("v1").addHeader("Cache-Control", "max-age=60"));
+
+        get(Collections.emptyMap());
+        get(Collections.emptyMap());
+
+        assertThat(server.getRequestCount(), equalTo(1));
+        assertThat(firstBytes.get(), equalTo(2));
+        assertThat(completions.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldNotServeResponseToRequestWithOtherCredentials() throws Exception {
+        server.enqueue(new MockResponse().setBody("alice").addHeader("Cache-Control", "max-age=60"));
+        server.enqueue(new MockResponse().setBody("bob").addHeader("Cache-Control", "max-age=60"));
+
+        assertThat(get(Collections.singletonMap("Authorization", "Bearer alice")), equalTo("alice"));
+        assertThat(get(Collections.singletonMap("Authorization", "Bearer bob")), equalTo("bob"));
+        assertThat(get(Collections.singletonMap("Authorization", "Bearer alice")), equalTo("alice"));
+
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldKeyOnRegistryAuthAndAccept() throws Exception {
+        server.enqueue(new MockResponse().setBody("a").addHeader("Cache-Control", "max-age=60"));
+        server.enqueue(new MockResponse().setBody("b").addHeader("Cache-Control", "max-age=60"));
+        server.enqueue(new MockResponse().setBody("c").addHeader("Cache-Control", "max-age=60"));
+
+        assertThat(get(Collections.singletonMap("X-Registry-Auth", "a")), equalTo("a"));
+        assertThat(get(Collections.singletonMap("X-Registry-Auth", "b")), equalTo("b"));
+        assertThat(get(Collections.singletonMap("Accept", "text/plain")), equalTo("c"));
+
+        assertThat(server.getRequestCount(), equalTo(3));
+    }
+
+    @Test
+    public void shouldServeVaryingResponseOnlyToMatchingRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("tenant a").addHeader("Cache-Control", "max-age=60").addHeader("Vary", "X-Tenant"));
+        server.enqueue(new MockResponse().setBody("tenant b").addHeader("Cache-Control", "max-age=60").addHeader("Vary", "X-Tenant"));
+
+        assertThat(get(Collections.singletonMap("X-Tenant", "a")), equalTo("tenant a"));
+        assertThat(get(Collections.singletonMap("X-Tenant", "a")), equalTo("tenant a"));
+        assertThat(get(Collections.singletonMap("X-Tenant", "b")), equalTo("tenant b"));
+
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRevalidateStaleResponseWithETag() throws Exception {
+        server.enqueue(new MockResponse().setBody("v1").addHeader("Cache-Control", "no-cache").addHeader("ETag", "\"1\""));
+        server.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "\"1\""));
+
+        assertThat(get(Collections.emptyMap()), equalTo("v1"));
+        assertThat(get(Collections.emptyMap()), equalTo("v1"));
+
+        server.takeRequest();
+        assertThat(server.takeRequest().getHeader("If-None-Match"), equalTo("\"1\""));
+    }
+
+    @Test
+    public void shouldNotStoreNoStoreResponse() throws Exception {
+        server.enqueue(new MockResponse().setBody("v1").addHeader("Cache-Control", "no-store"));
+        server.enqueue(new MockResponse().setBody("v2").addHeader("Cache-Control", "no-store"));
+
+        assertThat(get(Collections.emptyMap()), equalTo("v1"));
+        assertThat(get(Collections.emptyMap()), equalTo("v2"));
+    }
+
+    private String get(final Map<String, String> headers) {
+        return client.get("info", headers).toBlocking().first();
+    }
+}
@@ -0,0 +1,81 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.ConnectionPool;
+import okio.Buffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.newsclub.net.unix.AFUNIXServerSocket;
+import org.newsclub.net.unix.AFUNIXSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+import rx.observers.TestSubscriber;
+import rx.schedulers.Schedulers;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class OkHttpUnixSocketRxHttpClientTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ConnectionPool connectionPool = new ConnectionPool(5, 1, TimeUnit.MINUTES);
+    private File socketFile;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(AFUNIXSocket.isSupported());
+        socketFile = new File(folder.getRoot(), "docker.sock");
+    }
+
+    @Test
+    public void shouldMakeRequestsOverOnePooledConnection() throws Exception {
+        Map<String, Buffer> bodies = new HashMap<>();
+        bodies.put("/containers/json", new Buffer().writeUtf8("[]"));
+        bodies.put("/containers/create", new Buffer().writeUtf8("{\"Id\":\"abc\"}"));
+        try (UnixSocketHttpServer ignored = new UnixSocketHttpServer(socketFile, bodies)) {
+            RxHttpClient client = RxHttpClient.newUnixSocketRxClient(socketFile.getAbsolutePath(), new ClientConfigBuilder()
+                    .setConnectionPool(connectionPool)
+                    .createClientConfig());
+
+            assertThat(client.get("containers/json").toBlocking().single(), equalTo("[]"));
+            assertThat(client.request().get("containers/json").retrieve().toBlocking().single(), equalTo("[]"));
+            assertThat(client.post("containers/create", "{}").toBlocking().single().code(), equalTo(200));
+            assertThat(client.request().post("containers/create").body("{}").retrieve().toBlocking().single(), equalTo("{\"Id\":\"abc\"}"));
+
+            assertThat(connectionPool.connectionCount(), equalTo(1));
+            assertThat(connectionPool.idleConnectionCount(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void shouldApplyReadTimeoutToConnectedSocket() throws Exception {
+        // the request is accepted by the backlog of the socket but never answered
+        try (AFUNIXServerSocket silentServer = AFUNIXServerSocket.newInstance()) {
+            silentServer.bind(new AFUNIXSocketAddress(socketFile));
+            RxHttpClient client = RxHttpClient.newUnixSocketRxClient(socketFile.getAbsolutePath(), new ClientConfigBuilder()
+                    .setReadTimeout(Duration.ofMillis(200))
+                    .setRetryOnConnectionFailure(false)
+                    .createClientConfig());
+            TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+            // subscribed on another thread, so that a read that never times out fails the test instead of hanging it
+            client.get("containers/json").subscribeOn(Schedulers.io()).subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertTerminalEvent();
+            subscriber.assertError(ServiceException.class);
+            assertThat(subscriber.getOnErrorEvents().get(0).getCause(), instanceOf(IOException.class));
+        }
+    }
+}
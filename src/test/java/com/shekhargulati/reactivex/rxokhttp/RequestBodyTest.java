@@ -0,0 +1,130 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.shekhargulati.reactivex.rxokhttp.functions.ResponseTransformer;
+import okhttp3.MediaType;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.ByteString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RequestBodyTest {
+
+    private static final MediaType OCTET = MediaType.parse("application/octet-stream");
+    private static final ByteString CONTENT = ByteString.of((byte) 0x00, (byte) 0xff, (byte) 0xc3, (byte) 0x28, (byte) 0x0a, (byte) 0x80);
+
+    private final MockWebServer server = new MockWebServer();
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        server.enqueue(new MockResponse());
+        client = RxHttpClient.newRxClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldSendByteStringAsItIs() throws Exception {
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, CONTENT));
+
+        assertBody(request, CONTENT);
+        assertThat(request.getHeader("Content-Type"), equalTo("application/octet-stream"));
+    }
+
+    @Test
+    public void shouldSendSliceOfByteArray() throws Exception {
+        byte[] array = new byte[CONTENT.size() + 5];
+        System.arraycopy(CONTENT.toByteArray(), 0, array, 3, CONTENT.size());
+
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, array, 3, CONTENT.size()));
+
+        assertBody(request, CONTENT);
+    }
+
+    @Test
+    public void shouldSendRemainingBytesOfHeapBuffer() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(CONTENT.size() + 6);
+        buffer.put(new byte[4]).put(CONTENT.toByteArray()).put(new byte[2]);
+        buffer.position(4).limit(4 + CONTENT.size());
+
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, buffer));
+
+        assertBody(request, CONTENT);
+        assertThat(buffer.position(), equalTo(4));
+        assertThat(buffer.limit(), equalTo(4 + CONTENT.size()));
+    }
+
+    @Test
+    public void shouldSendRemainingBytesOfSlicedHeapBuffer() throws Exception {
+        ByteBuffer whole = ByteBuffer.wrap(new byte[CONTENT.size() + 8]);
+        whole.position(5);
+        ByteBuffer buffer = whole.slice();
+        buffer.put(new byte[1]).put(CONTENT.toByteArray());
+        buffer.position(1).limit(1 + CONTENT.size());
+
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, buffer));
+
+        assertBody(request, CONTENT);
+        assertThat(buffer.position(), equalTo(1));
+    }
+
+    @Test
+    public void shouldSendRemainingBytesOfDirectBuffer() throws Exception {
+        // larger than the copy chunk, so the buffer is written in several chunks
+        byte[] content = new byte[20000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(content.length + 7);
+        buffer.put(new byte[7]).put(content);
+        buffer.position(7);
+
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, buffer));
+
+        assertBody(request, ByteString.of(content));
+        assertThat(buffer.position(), equalTo(7));
+        assertThat(buffer.remaining(), equalTo(content.length));
+    }
+
+    @Test
+    public void shouldStreamBodyWriterWithContentLength() throws Exception {
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, CONTENT.size(), sink -> sink.write(CONTENT)));
+
+        assertBody(request, CONTENT);
+        assertThat(request.getHeader("Transfer-Encoding"), nullValue());
+    }
+
+    @Test
+    public void shouldStreamBodyWriterChunkedWhenLengthIsUnknown() throws Exception {
+        RecordedRequest request = send(client.request().post("images/load").body(OCTET, -1, sink -> sink.write(CONTENT)));
+
+        assertThat(request.getBody().readByteString(), equalTo(CONTENT));
+        assertThat(request.getHeader("Content-Length"), nullValue());
+        assertThat(request.getHeader("Transfer-Encoding"), equalTo("chunked"));
+    }
+
+    private RecordedRequest send(final RequestBuilder request) throws Exception {
+        HttpStatus status = request.retrieve(ResponseTransformer.httpStatus()).toBlocking().single();
+        assertThat(status.code(), equalTo(200));
+        return server.takeRequest();
+    }
+
+    private static void assertBody(final RecordedRequest request, final ByteString expected) {
+        assertThat(request.getHeader("Content-Length"), equalTo(String.valueOf(expected.size())));
+        assertThat(request.getBodySize(), equalTo((long) expected.size()));
+        assertThat(request.getBody().readByteString(), equalTo(expected));
+    }
+}
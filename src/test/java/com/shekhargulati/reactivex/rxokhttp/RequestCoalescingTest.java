@@ -0,0 +1,137 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.shekhargulati.reactivex.rxokhttp.functions.ResponseTransformer;
+import com.shekhargulati.reactivex.rxokhttp.functions.StringResponseToCollectionTransformer;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Calls are enqueued so that subscribing returns right away and several identical requests are in flight at once,
+ * the server holding back the response body long enough for all of them to subscribe.
+ */
+public class RequestCoalescingTest {
+
+    private static final StringResponseToCollectionTransformer<String> SPLIT = body -> Arrays.asList(body.replaceAll("[\\[\\]\"]", "").split(","));
+
+    private final MockWebServer server = new MockWebServer();
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setAsyncExecution(true)
+                .setCoalesceGetRequests(true)
+                .createClientConfig());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldShareOneCallBetweenLegacyAndBuilderGets() throws Exception {
+        enqueueSlowResponse("[\"a\",\"b\"]");
+        server.enqueue(new MockResponse().setBody("unexpected"));
+        TestSubscriber<String> legacy = new TestSubscriber<>();
+        TestSubscriber<String> builder = new TestSubscriber<>();
+        TestSubscriber<Integer> status = new TestSubscriber<>();
+
+        client.get("containers/json", SPLIT).subscribe(legacy);
+        client.request().get("containers/json").retrieve().subscribe(builder);
+        client.request().get("containers/json").retrieve(ResponseTransformer.httpStatus()).map(HttpStatus::code).subscribe(status);
+
+        legacy.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        builder.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        status.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        legacy.assertValues("a", "b");
+        builder.assertValue("[\"a\",\"b\"]");
+        status.assertValue(200);
+        assertThat(server.getRequestCount(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotShareCallsWithDifferentHeaders() throws Exception {
+        enqueueSlowResponse("first");
+        enqueueSlowResponse("second");
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+
+        client.get("containers/json").subscribe(first);
+        client.get("containers/json", Collections.singletonMap("X-Registry-Auth", "token")).subscribe(second);
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertNoErrors();
+        second.assertNoErrors();
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldApplyDeadlineOfEachCallerToItsOwnSubscription() throws Exception {
+        enqueueSlowResponse("[]");
+        server.enqueue(new MockResponse().setBody("unexpected"));
+        TestSubscriber<String> hurried = new TestSubscriber<>();
+        TestSubscriber<String> patient = new TestSubscriber<>();
+
+        client.request().get("containers/json").deadline(Duration.ofMillis(50)).retrieve().subscribe(hurried);
+        client.request().get("containers/json").deadline(Duration.ofSeconds(5)).retrieve().subscribe(patient);
+
+        hurried.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        patient.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        hurried.assertError(DeadlineExceededException.class);
+        patient.assertValue("[]");
+        assertThat(server.getRequestCount(), equalTo(1));
+    }
+
+    @Test
+    public void shouldNotShareCallsWithDifferentTimeouts() throws Exception {
+        enqueueSlowResponse("first");
+        enqueueSlowResponse("second");
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+
+        client.request().get("containers/json").timeout(Duration.ofSeconds(5)).retrieve().subscribe(first);
+        client.request().get("containers/json").timeout(Duration.ofSeconds(10)).retrieve().subscribe(second);
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertNoErrors();
+        second.assertNoErrors();
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldNotShareStreamedGets() throws Exception {
+        enqueueSlowResponse("line\n");
+        enqueueSlowResponse("line\n");
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+
+        client.request().get("containers/json").stream(Delimiter.NEWLINE).subscribe(first);
+        client.request().get("containers/json").stream(Delimiter.NEWLINE).subscribe(second);
+
+        first.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        second.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        first.assertValue("line");
+        second.assertValue("line");
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    private void enqueueSlowResponse(final String body) {
+        server.enqueue(new MockResponse().setBody(body).setBodyDelay(300, TimeUnit.MILLISECONDS));
+    }
+}
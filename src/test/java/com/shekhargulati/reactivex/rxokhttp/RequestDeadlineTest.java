@@ -0,0 +1,104 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+public class RequestDeadlineTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = RxHttpClient.newRxClient(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldReadStreamOnDemandWhenDeadlineIsSet() throws Exception {
+        server.enqueue(new MockResponse().setBody("line 1\nline 2\nline 3\n"));
+        AtomicInteger reads = new AtomicInteger();
+        TestSubscriber<String> subscriber = new TestSubscriber<>(1L);
+
+        client.request().get("containers/abc/logs").deadline(Duration.ofSeconds(5))
+                .stream(source -> {
+                    reads.incrementAndGet();
+                    return source.readUtf8LineStrict();
+                })
+                .subscribe(subscriber);
+
+        subscriber.assertValues("line 1");
+        assertThat(reads.get(), equalTo(1));
+        subscriber.requestMore(1);
+        subscriber.assertValues("line 1", "line 2");
+        assertThat(reads.get(), equalTo(2));
+        subscriber.requestMore(Long.MAX_VALUE);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertCompleted();
+        assertThat(subscriber.getOnNextEvents(), equalTo(Arrays.asList("line 1", "line 2", "line 3")));
+    }
+
+    @Test
+    public void shouldCancelCallWhenDeadlineExpires() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+        long startNanos = System.nanoTime();
+
+        client.request().get("containers/json").deadline(Duration.ofMillis(200)).retrieve().subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertThat(subscriber.getOnErrorEvents().get(0), instanceOf(DeadlineExceededException.class));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), lessThan(5000L));
+    }
+
+    @Test
+    public void shouldUseEarlierOfTimeoutAndUpstreamDeadline() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        client.request().get("containers/json")
+                .deadline(Duration.ofMinutes(1))
+                .deadline(Instant.now().plusMillis(200))
+                .retrieve().subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        Throwable error = subscriber.getOnErrorEvents().get(0);
+        assertThat(error, instanceOf(DeadlineExceededException.class));
+        assertThat(((DeadlineExceededException) error).getBudget().toMillis(), lessThan(1000L));
+    }
+
+    @Test
+    public void shouldApplyCallTimeoutOfClientConfig() throws Exception {
+        RxHttpClient timedClient = RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setCallTimeout(Duration.ofMillis(200))
+                .createClientConfig());
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        timedClient.get("containers/json").subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(DeadlineExceededException.class);
+    }
+}
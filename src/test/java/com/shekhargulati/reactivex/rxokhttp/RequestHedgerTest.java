@@ -0,0 +1,129 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class RequestHedgerTest {
+
+    private static final String ENDPOINT = "containers/json";
+
+    private final RequestHedger hedger = new RequestHedger(HedgePolicy.atPercentile(50)
+            .minSamples(1)
+            .minDelay(Duration.ofMillis(50))
+            .maxHedgeRate(1.0));
+
+    @Before
+    public void setUp() throws Exception {
+        // a single fast sample makes every following request hedged after the minimum delay
+        hedger.hedge(ENDPOINT, Observable.just(response(200))).toBlocking().single();
+    }
+
+    @Test
+    public void shouldHedgeSlowRequestAndCancelPrimary() throws Exception {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+        Observable<Response> primary = Observable.<Response>never().doOnUnsubscribe(() -> primaryCancelled.set(true));
+
+        TestSubscriber<Response> subscriber = race(primary, Observable.just(response(200)));
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertThat(subscriber.getOnNextEvents().get(0).code(), equalTo(200));
+        assertThat(primaryCancelled.get(), equalTo(true));
+    }
+
+    @Test
+    public void shouldRecordElapsedTimeOfCancelledPrimary() throws Exception {
+        LatencyHistogram histogram = hedger.latencies(ENDPOINT);
+
+        race(Observable.never(), Observable.just(response(200))).awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        assertThat(histogram.getCount(), equalTo(2L));
+        assertThat(histogram.getMax(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toMicros(40)));
+    }
+
+    @Test
+    public void shouldPassServerErrorThroughWhenNoHedgeIsInFlight() throws Exception {
+        AtomicBoolean hedged = new AtomicBoolean();
+
+        TestSubscriber<Response> subscriber = race(Observable.just(response(503)),
+                Observable.just(response(200)).doOnSubscribe(() -> hedged.set(true)));
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        assertThat(subscriber.getOnNextEvents().get(0).code(), equalTo(503));
+        Thread.sleep(100);
+        assertThat(hedged.get(), equalTo(false));
+    }
+
+    @Test
+    public void shouldNotWaitForHedgeTimerWhenPrimaryFails() throws Exception {
+        RequestHedger slowHedger = new RequestHedger(HedgePolicy.atPercentile(50)
+                .minSamples(1)
+                .minDelay(Duration.ofSeconds(10))
+                .maxHedgeRate(1.0));
+        slowHedger.hedge(ENDPOINT, Observable.just(response(200))).toBlocking().single();
+        TestSubscriber<Response> subscriber = new TestSubscriber<>();
+
+        slowHedger.hedge(ENDPOINT, Observable.error(new ServiceException(new IOException("reset")))).subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(1, TimeUnit.SECONDS);
+        assertThat(subscriber.getOnErrorEvents().get(0), instanceOf(ServiceException.class));
+    }
+
+    @Test
+    public void shouldPreferHedgeOverServerErrorOfPrimary() throws Exception {
+        Observable<Response> primary = Observable.timer(100, TimeUnit.MILLISECONDS).map(tick -> response(503));
+        Observable<Response> hedge = Observable.timer(200, TimeUnit.MILLISECONDS).map(tick -> response(200));
+
+        TestSubscriber<Response> subscriber = race(primary, hedge);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        assertThat(subscriber.getOnNextEvents().get(0).code(), equalTo(200));
+    }
+
+    @Test
+    public void shouldPassServerErrorThroughWhenHedgeFails() throws Exception {
+        Observable<Response> primary = Observable.timer(100, TimeUnit.MILLISECONDS).map(tick -> response(503));
+        Observable<Response> hedge = Observable.timer(200, TimeUnit.MILLISECONDS)
+                .flatMap(tick -> Observable.<Response>error(new ServiceException(new IOException("reset"))));
+
+        TestSubscriber<Response> subscriber = race(primary, hedge);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertNoErrors();
+        assertThat(subscriber.getOnNextEvents().get(0).code(), equalTo(503));
+    }
+
+    private TestSubscriber<Response> race(final Observable<Response> primary, final Observable<Response> hedge) {
+        AtomicInteger attempts = new AtomicInteger();
+        TestSubscriber<Response> subscriber = new TestSubscriber<>();
+        hedger.hedge(ENDPOINT, Observable.defer(() -> attempts.getAndIncrement() == 0 ? primary : hedge)).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static Response response(final int code) {
+        return new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/" + ENDPOINT).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message("status " + code)
+                .body(ResponseBody.create(null, ""))
+                .build();
+    }
+}
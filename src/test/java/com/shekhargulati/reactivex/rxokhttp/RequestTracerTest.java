@@ -0,0 +1,120 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class RequestTracerTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final RecordingTracer tracer = new RecordingTracer();
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldTraceSuccessfulRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        String body = client(false).get("containers/json").toBlocking().single();
+
+        assertThat(body, equalTo("[]"));
+        assertThat(tracer.events, equalTo(Arrays.asList("started GET containers/json", "response GET 200")));
+    }
+
+    @Test
+    public void shouldTraceConnectionFailure() throws Exception {
+        assertConnectionFailureTraced(false);
+    }
+
+    @Test
+    public void shouldTraceConnectionFailureWithAsyncExecution() throws Exception {
+        assertConnectionFailureTraced(true);
+    }
+
+    @Test
+    public void shouldNotSampleWhenDisabled() throws Exception {
+        assertThat(RequestTracer.disabled().sample(), is(false));
+        assertThat(RequestTracer.sampled(0).sample(), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSampleRateAboveOne() throws Exception {
+        RequestTracer.sampled(1.5);
+    }
+
+    private void assertConnectionFailureTraced(final boolean asyncExecution) throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+
+        client(asyncExecution).get("containers/json").subscribe(subscriber);
+
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(ServiceException.class);
+        assertThat(tracer.events, equalTo(Arrays.asList("started GET containers/json", "failed GET IOException")));
+    }
+
+    private RxHttpClient client(final boolean asyncExecution) {
+        return RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setRequestTracer(tracer)
+                .setAsyncExecution(asyncExecution)
+                .setRetryOnConnectionFailure(false)
+                .createClientConfig());
+    }
+
+    /**
+     * Traces every request, whatever the level of the logger, and records the callbacks it receives.
+     */
+    private static class RecordingTracer extends RequestTracer {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingTracer() {
+            super(1);
+        }
+
+        @Override
+        boolean sample() {
+            return true;
+        }
+
+        @Override
+        void requestStarted(final String endpoint, final Request request) {
+            events.add("started " + request.method() + " " + endpoint);
+        }
+
+        @Override
+        void responseReceived(final Request request, final Response response, final long startNanos) {
+            events.add("response " + request.method() + " " + response.code());
+        }
+
+        @Override
+        void requestFailed(final Request request, final Throwable error, final long startNanos) {
+            events.add("failed " + request.method() + " " + (error instanceof IOException ? "IOException" : error.getClass().getSimpleName()));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import com.shekhargulati.reactivex.rxokhttp.functions.ResponseTransformer;
+import okhttp3.ConnectionPool;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * A response body left open keeps its connection out of the pool, so the next request has to open a new one. These
+ * tests make several requests over a single connection and check that each of them reused it.
+ */
+public class ResponseReleaseTest {
+
+    private static final int REQUESTS = 3;
+
+    private final MockWebServer server = new MockWebServer();
+    private final ConnectionPool connectionPool = new ConnectionPool(5, 1, TimeUnit.MINUTES);
+    private RxHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        client = RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setConnectionPool(connectionPool)
+                .setMaxErrorBodySize(16)
+                .createClientConfig());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenGetWithResponseTransformerFails() throws Exception {
+        enqueue(500, "{\"message\":\"server error\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertServiceException(client.get("containers/json", ResponseTransformer.httpStatus()));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenGetFails() throws Exception {
+        enqueue(404, "{\"message\":\"no such container\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertServiceException(client.get("containers/abc/json"));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenPostFails() throws Exception {
+        enqueue(409, "{\"message\":\"conflict\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertServiceException(client.post("containers/abc/start", "{}"));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenDeleteFails() throws Exception {
+        enqueue(404, "{\"message\":\"no such container\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertServiceException(client.delete("containers/abc"));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenStreamFails() throws Exception {
+        enqueue(500, "{\"message\":\"server error\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            assertServiceException(client.getResponseStream("containers/abc/logs"));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenBodyIsNotRead() throws Exception {
+        enqueue(200, "{\"Id\":\"abc\"}");
+        for (int i = 0; i < REQUESTS; i++) {
+            HttpStatus status = client.post("containers/create", "{}").toBlocking().first();
+            assertThat(status.code(), equalTo(200));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenStreamIsUnsubscribedEarly() throws Exception {
+        enqueue(200, "line 1\nline 2\nline 3\n");
+        for (int i = 0; i < REQUESTS; i++) {
+            String first = client.getResponseStream("containers/abc/logs", Collections.emptyMap(), Delimiter.NEWLINE, line -> line)
+                    .toBlocking().first();
+            assertThat(first, equalTo("line 1"));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldReleaseConnectionWhenChunkedStreamIsReadToTheEnd() throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            server.enqueue(new MockResponse().setChunkedBody("line 1\nline 2\nline 3\n", 4));
+        }
+        for (int i = 0; i < REQUESTS; i++) {
+            List<String> lines = client.getResponseStream("containers/abc/logs", Collections.emptyMap(), Delimiter.NEWLINE, line -> line)
+                    .toList().toBlocking().single();
+            assertThat(lines, equalTo(Arrays.asList("line 1", "line 2", "line 3")));
+        }
+        assertConnectionReused();
+    }
+
+    @Test
+    public void shouldCaptureErrorBodyUpToMaxErrorBodySize() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500).setBody("0123456789abcdefghij"));
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+        client.get("containers/json").subscribe(subscriber);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        Throwable error = subscriber.getOnErrorEvents().get(0);
+        assertThat(error, instanceOf(ServiceException.class));
+        assertThat(((ServiceException) error).getCode(), equalTo(500));
+        assertThat(((ServiceException) error).getErrorBody(), equalTo("0123456789abcdef"));
+    }
+
+    private void enqueue(final int code, final String body) {
+        for (int i = 0; i < REQUESTS; i++) {
+            server.enqueue(new MockResponse().setResponseCode(code).setBody(body));
+        }
+    }
+
+    private static void assertServiceException(final Observable<?> observable) {
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+        observable.subscribe(subscriber);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(ServiceException.class);
+    }
+
+    private void assertConnectionReused() throws Exception {
+        for (int i = 0; i < REQUESTS; i++) {
+            assertThat(server.takeRequest().getSequenceNumber(), equalTo(i));
+        }
+        assertThat(connectionPool.connectionCount(), equalTo(1));
+        assertThat(connectionPool.idleConnectionCount(), equalTo(1));
+    }
+}
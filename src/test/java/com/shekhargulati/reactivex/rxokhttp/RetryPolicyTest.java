@@ -0,0 +1,143 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * OkHttp's own retry on connection failure is turned off, so every attempt made by the RetryPolicy is one request
+ * received by the server.
+ */
+public class RetryPolicyTest {
+
+    private static final RetryPolicy FAST_RETRIES = RetryPolicy.defaultPolicy().backoff(Duration.ofMillis(1), Duration.ofSeconds(2));
+
+    private final MockWebServer server = new MockWebServer();
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldRetryRetryableStatusCode() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        String body = client(FAST_RETRIES, false).get("containers/json").toBlocking().single();
+
+        assertThat(body, equalTo("ok"));
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    @Test
+    public void shouldWaitForRetryAfter() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "1"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        String body = client(FAST_RETRIES, false).get("containers/json").toBlocking().single();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(body, equalTo("ok"));
+        assertThat(server.getRequestCount(), equalTo(2));
+        assertThat(elapsedMillis, greaterThanOrEqualTo(1000L));
+    }
+
+    @Test
+    public void shouldNotRetryWhenRetryAfterExceedsMaxBackoff() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "120"));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        long start = System.nanoTime();
+        assertServiceUnavailable(client(FAST_RETRIES, false).get("containers/json"));
+
+        assertThat(server.getRequestCount(), equalTo(1));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(2000L));
+    }
+
+    @Test
+    public void shouldNotRetryPost() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        assertServiceUnavailable(client(FAST_RETRIES, false).post("containers/create", "{}"));
+
+        assertThat(server.getRequestCount(), equalTo(1));
+    }
+
+    @Test
+    public void shouldRetryIoFailure() throws Exception {
+        assertIoFailureRetried(false);
+    }
+
+    @Test
+    public void shouldRetryIoFailureWithAsyncExecution() throws Exception {
+        assertIoFailureRetried(true);
+    }
+
+    @Test
+    public void shouldStopRetryingWhenBudgetIsExhausted() throws Exception {
+        // with no deposits the budget only holds its reserve of 10 retries
+        RxHttpClient client = client(FAST_RETRIES.maxAttempts(2).budget(0), false);
+        for (int i = 0; i < 10; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+            server.enqueue(new MockResponse().setResponseCode(503));
+            assertServiceUnavailable(client.get("containers/json"));
+        }
+        assertThat(server.getRequestCount(), equalTo(20));
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+        assertServiceUnavailable(client.get("containers/json"));
+
+        assertThat(server.getRequestCount(), equalTo(21));
+    }
+
+    private void assertIoFailureRetried(final boolean asyncExecution) throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setBody("ok"));
+
+        String body = client(FAST_RETRIES, asyncExecution).get("containers/json").toBlocking().single();
+
+        assertThat(body, equalTo("ok"));
+        assertThat(server.getRequestCount(), equalTo(2));
+    }
+
+    private RxHttpClient client(final RetryPolicy retryPolicy, final boolean asyncExecution) {
+        return RxHttpClient.newRxClient(server.url("/").toString(), new ClientConfigBuilder()
+                .setRetryOnConnectionFailure(false)
+                .setAsyncExecution(asyncExecution)
+                .setRetryPolicy(retryPolicy)
+                .createClientConfig());
+    }
+
+    private static void assertServiceUnavailable(final Observable<?> observable) {
+        TestSubscriber<Object> subscriber = new TestSubscriber<>();
+        observable.subscribe(subscriber);
+        subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        subscriber.assertError(ServiceException.class);
+        Throwable error = subscriber.getOnErrorEvents().get(0);
+        assertThat(error, instanceOf(ServiceException.class));
+        assertThat(((ServiceException) error).getCode(), equalTo(503));
+    }
+}
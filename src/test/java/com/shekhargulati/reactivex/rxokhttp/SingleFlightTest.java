@@ -0,0 +1,105 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import org.junit.Test;
+import rx.Observable;
+import rx.observers.TestSubscriber;
+import rx.subjects.PublishSubject;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final PublishSubject<String> response = PublishSubject.create();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    @Test
+    public void shouldShareExecutionBetweenSubscribers() throws Exception {
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+
+        execute("containers/json").subscribe(first);
+        execute("containers/json").subscribe(second);
+        response.onNext("[]");
+        response.onCompleted();
+
+        assertThat(executions.get(), equalTo(1));
+        first.assertValues("[]");
+        first.assertCompleted();
+        second.assertValues("[]");
+        second.assertCompleted();
+    }
+
+    @Test
+    public void shouldNotShareExecutionBetweenKeys() throws Exception {
+        execute("containers/json").subscribe(new TestSubscriber<>());
+        execute("images/json").subscribe(new TestSubscriber<>());
+
+        assertThat(executions.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldStartNewExecutionAfterTermination() throws Exception {
+        execute("containers/json").subscribe(new TestSubscriber<>());
+        response.onNext("[]");
+        response.onCompleted();
+
+        execute("containers/json").subscribe(new TestSubscriber<>());
+
+        assertThat(executions.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldStartNewExecutionAfterError() throws Exception {
+        TestSubscriber<String> subscriber = new TestSubscriber<>();
+        execute("containers/json").subscribe(subscriber);
+        response.onError(new ServiceException("boom"));
+
+        execute("containers/json").subscribe(new TestSubscriber<>());
+
+        subscriber.assertError(ServiceException.class);
+        assertThat(executions.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldKeepExecutionWhileOneSubscriberRemains() throws Exception {
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+        execute("containers/json").subscribe(first);
+        execute("containers/json").subscribe(second);
+
+        first.unsubscribe();
+        assertThat(cancelled.get(), equalTo(false));
+        response.onNext("[]");
+        response.onCompleted();
+
+        second.assertValues("[]");
+        second.assertCompleted();
+    }
+
+    @Test
+    public void shouldCancelExecutionWhenAllSubscribersUnsubscribe() throws Exception {
+        TestSubscriber<String> first = new TestSubscriber<>();
+        TestSubscriber<String> second = new TestSubscriber<>();
+        execute("containers/json").subscribe(first);
+        execute("containers/json").subscribe(second);
+
+        first.unsubscribe();
+        second.unsubscribe();
+
+        assertThat(cancelled.get(), equalTo(true));
+        execute("containers/json").subscribe(new TestSubscriber<>());
+        assertThat(executions.get(), equalTo(2));
+    }
+
+    private Observable<String> execute(final String key) {
+        return singleFlight.execute(key, () -> response
+                .doOnSubscribe(executions::incrementAndGet)
+                .doOnUnsubscribe(() -> cancelled.set(true)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.Test;
+import rx.observers.TestSubscriber;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class StreamFrameTest {
+
+    @Test
+    public void shouldReadFramesOfEachStream() throws Exception {
+        Buffer source = new Buffer();
+        frame(source, 1, "out");
+        frame(source, 2, "err");
+        frame(source, 0, "in");
+
+        StreamFrame stdout = StreamFrame.read(source);
+        StreamFrame stderr = StreamFrame.read(source);
+        StreamFrame stdin = StreamFrame.read(source);
+
+        assertThat(stdout.type(), equalTo(StreamFrame.StreamType.STDOUT));
+        assertThat(stdout.payload().readUtf8(), equalTo("out"));
+        assertThat(stderr.type(), equalTo(StreamFrame.StreamType.STDERR));
+        assertThat(stderr.payload().readUtf8(), equalTo("err"));
+        assertThat(stdin.type(), equalTo(StreamFrame.StreamType.STDIN));
+        assertThat(stdin.payload().readUtf8(), equalTo("in"));
+        assertThat(source.exhausted(), equalTo(true));
+    }
+
+    @Test
+    public void shouldReadEmptyFrame() throws Exception {
+        Buffer source = new Buffer();
+        frame(source, 1, "");
+
+        assertThat(StreamFrame.read(source).payload().size(), equalTo(0L));
+    }
+
+    @Test
+    public void shouldReadPayloadLargerThanSegment() throws Exception {
+        StringBuilder payload = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            payload.append(i % 10);
+        }
+        Buffer source = new Buffer();
+        frame(source, 1, payload.toString());
+
+        assertThat(StreamFrame.read(source).payload().readUtf8(), equalTo(payload.toString()));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnknownStreamType() throws Exception {
+        Buffer source = new Buffer();
+        frame(source, 3, "out");
+        StreamFrame.read(source);
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldFailOnTruncatedHeader() throws Exception {
+        StreamFrame.read(new Buffer().writeByte(1).writeByte(0));
+    }
+
+    @Test(expected = EOFException.class)
+    public void shouldFailOnTruncatedPayload() throws Exception {
+        Buffer source = new Buffer().writeByte(1).writeByte(0).writeByte(0).writeByte(0).writeInt(10).writeUtf8("short");
+        StreamFrame.read(source);
+    }
+
+    @Test
+    public void shouldStreamFramesOfResponse() throws Exception {
+        Buffer body = new Buffer();
+        frame(body, 1, "line 1\n");
+        frame(body, 2, "oops\n");
+        frame(body, 1, "line 2\n");
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody(body).throttleBody(5, 10, TimeUnit.MILLISECONDS));
+        server.start();
+        try {
+            RxHttpClient client = RxHttpClient.newRxClient(server.url("/").toString());
+            TestSubscriber<StreamFrame> subscriber = new TestSubscriber<>();
+
+            client.getResponseFrameStream("containers/abc/logs", Collections.emptyMap()).subscribe(subscriber);
+
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertNoErrors();
+            List<StreamFrame> frames = subscriber.getOnNextEvents();
+            assertThat(frames.size(), equalTo(3));
+            assertThat(frames.get(1).type(), equalTo(StreamFrame.StreamType.STDERR));
+            assertThat(frames.get(2).payload().readUtf8(), equalTo("line 2\n"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    private static void frame(final Buffer sink, final int streamType, final String payload) {
+        Buffer bytes = new Buffer().writeUtf8(payload);
+        sink.writeByte(streamType).writeByte(0).writeByte(0).writeByte(0).writeInt((int) bytes.size()).writeAll(bytes);
+    }
+}
@@ -0,0 +1,237 @@
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okhttp3.MediaType;
+import okio.Buffer;
+import okio.GzipSource;
+import okio.Okio;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class TarRequestBodyTest {
+
+    private static final MediaType TAR = MediaType.parse("application/x-tar");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldArchiveFilesAndDirectories() throws Exception {
+        Path root = folder.getRoot().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM busybox\n".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(root.resolve("src/main"));
+        Files.write(root.resolve("src/main/app.sh"), "echo hello\n".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Entry> entries = read(archive(root, TarOptions.defaultOptions()));
+
+        assertThat(entries.keySet().size(), equalTo(4));
+        assertThat(entries.get("Dockerfile").type, equalTo((byte) '0'));
+        assertThat(entries.get("Dockerfile").content(), equalTo("FROM busybox\n"));
+        assertThat(entries.get("src/").type, equalTo((byte) '5'));
+        assertThat(entries.get("src/main/").type, equalTo((byte) '5'));
+        assertThat(entries.get("src/main/app.sh").content(), equalTo("echo hello\n"));
+    }
+
+    @Test
+    public void shouldUseLongNameEntryForLongNames() throws Exception {
+        Path root = folder.getRoot().toPath();
+        String directory = repeat("d", 60) + "/" + repeat("e", 60);
+        Files.createDirectories(root.resolve(directory));
+        Files.write(root.resolve(directory + "/file.txt"), "content".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Entry> entries = read(archive(root, TarOptions.defaultOptions()));
+
+        assertThat(entries.get(directory + "/file.txt").content(), equalTo("content"));
+        assertThat(entries.get(directory + "/").type, equalTo((byte) '5'));
+    }
+
+    @Test
+    public void shouldUseLongLinkEntryForLongSymlinkTargets() throws Exception {
+        Path root = folder.getRoot().toPath();
+        String target = repeat("../target", 20);
+        Files.createSymbolicLink(root.resolve("short"), root.getFileSystem().getPath("Dockerfile"));
+        Files.createSymbolicLink(root.resolve("long"), root.getFileSystem().getPath(target));
+
+        Map<String, Entry> entries = read(archive(root, TarOptions.defaultOptions()));
+
+        assertThat(entries.get("short").type, equalTo((byte) '2'));
+        assertThat(entries.get("short").linkName, equalTo("Dockerfile"));
+        assertThat(entries.get("long").type, equalTo((byte) '2'));
+        assertThat(entries.get("long").linkName, equalTo(target));
+    }
+
+    @Test
+    public void shouldArchiveFilesLargerThanABlock() throws Exception {
+        Path root = folder.getRoot().toPath();
+        byte[] content = new byte[1024 * 1024 + 123];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Files.write(root.resolve("layer.bin"), content);
+        Files.write(root.resolve("after.txt"), "after".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Entry> entries = read(archive(root, TarOptions.defaultOptions()));
+
+        assertThat(entries.get("layer.bin").content.length, equalTo(content.length));
+        assertThat(Arrays.equals(entries.get("layer.bin").content, content), equalTo(true));
+        assertThat(entries.get("after.txt").content(), equalTo("after"));
+    }
+
+    @Test
+    public void shouldEncodeSizesThatDoNotFitOctalFieldInBase256() throws Exception {
+        long size = 10L * 1024 * 1024 * 1024;
+        Buffer header = new Buffer();
+
+        TarRequestBody.writeHeaderBlock(header, "huge.bin".getBytes(StandardCharsets.UTF_8), 0644, size, 0, (byte) '0', new byte[0]);
+
+        byte[] block = header.readByteArray();
+        assertThat(block.length, equalTo(512));
+        assertThat(size(block), equalTo(size));
+        assertThat(checksumMatches(block), equalTo(true));
+    }
+
+    @Test
+    public void shouldSkipIgnoredPaths() throws Exception {
+        Path root = folder.getRoot().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM busybox\n".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(root.resolve("target"));
+        Files.write(root.resolve("target/app.jar"), "jar".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Entry> entries = read(archive(root, TarOptions.defaultOptions().ignore("target")));
+
+        assertThat(entries.keySet(), equalTo(Collections.singleton("Dockerfile")));
+    }
+
+    @Test
+    public void shouldGzipArchive() throws Exception {
+        Path root = folder.getRoot().toPath();
+        Files.write(root.resolve("Dockerfile"), "FROM busybox\n".getBytes(StandardCharsets.UTF_8));
+
+        Buffer gzipped = archive(root, TarOptions.defaultOptions().gzip());
+        Buffer archive = new Buffer();
+        Okio.buffer(new GzipSource(gzipped)).readAll(archive);
+
+        assertThat(read(archive).get("Dockerfile").content(), equalTo("FROM busybox\n"));
+    }
+
+    private static Buffer archive(final Path directory, final TarOptions options) throws IOException {
+        Buffer archive = new Buffer();
+        new TarRequestBody(directory, TAR, options).writeTo(archive);
+        return archive;
+    }
+
+    /**
+     * Minimal tar reader supporting ustar headers, base-256 sizes and GNU long name and long link entries.
+     */
+    private static Map<String, Entry> read(final Buffer archive) throws IOException {
+        assertThat(archive.size() % 512, equalTo(0L));
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        String longName = null;
+        String longLink = null;
+        while (true) {
+            byte[] header = archive.readByteArray(512);
+            if (isZero(header)) {
+                assertThat(isZero(archive.readByteArray(512)), equalTo(true));
+                assertThat(archive.exhausted(), equalTo(true));
+                return entries;
+            }
+            assertThat(checksumMatches(header), equalTo(true));
+            long size = size(header);
+            byte[] content = archive.readByteArray(size);
+            archive.skip((512 - size % 512) % 512);
+            byte type = header[156];
+            if (type == 'L') {
+                longName = string(content, 0, content.length);
+            } else if (type == 'K') {
+                longLink = string(content, 0, content.length);
+            } else {
+                String name = longName != null ? longName : string(header, 0, 100);
+                String linkName = longLink != null ? longLink : string(header, 157, 100);
+                entries.put(name, new Entry(type, linkName, content));
+                longName = null;
+                longLink = null;
+            }
+        }
+    }
+
+    private static long size(final byte[] header) {
+        if ((header[124] & 0x80) != 0) {
+            long size = header[124] & 0x7f;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xff);
+            }
+            return size;
+        }
+        return octal(header, 124, 12);
+    }
+
+    private static boolean checksumMatches(final byte[] header) {
+        long checksum = 0;
+        for (int i = 0; i < header.length; i++) {
+            checksum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+        }
+        return checksum == octal(header, 148, 8);
+    }
+
+    private static long octal(final byte[] header, final int offset, final int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length && header[i] >= '0' && header[i] <= '7'; i++) {
+            value = value * 8 + (header[i] - '0');
+        }
+        return value;
+    }
+
+    private static String string(final byte[] bytes, final int offset, final int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isZero(final byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String repeat(final String value, final int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    private static class Entry {
+
+        private final byte type;
+        private final String linkName;
+        private final byte[] content;
+
+        Entry(final byte type, final String linkName, final byte[] content) {
+            this.type = type;
+            this.linkName = linkName;
+            this.content = content;
+        }
+
+        String content() {
+            return new String(content, StandardCharsets.UTF_8);
+        }
+    }
+}
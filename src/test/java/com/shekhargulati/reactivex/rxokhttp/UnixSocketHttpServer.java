@@ -0,0 +1,138 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2015 Shekhar Gulati <shekhargulati84@gmail.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package com.shekhargulati.reactivex.rxokhttp;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import org.newsclub.net.unix.AFUNIXServerSocket;
+import org.newsclub.net.unix.AFUNIXSocketAddress;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal HTTP/1.1 server listening on a Unix domain socket. It keeps connections alive, drains request bodies sent
+ * with a content length or chunked, and answers every request with the body registered for its path.
+ */
+class UnixSocketHttpServer implements Closeable {
+
+    private final AFUNIXServerSocket serverSocket;
+    private final Map<String, Buffer> responseBodies;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    UnixSocketHttpServer(final File socketFile, final Map<String, Buffer> responseBodies) throws IOException {
+        this.responseBodies = responseBodies;
+        this.serverSocket = AFUNIXServerSocket.newInstance();
+        this.serverSocket.bind(new AFUNIXSocketAddress(socketFile));
+        executor.execute(this::acceptConnections);
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(final Socket socket) {
+        try (Socket s = socket;
+             BufferedSource source = Okio.buffer(Okio.source(s));
+             BufferedSink sink = Okio.buffer(Okio.sink(s))) {
+            String requestLine;
+            while ((requestLine = source.readUtf8Line()) != null && !requestLine.isEmpty()) {
+                String path = path(requestLine.split(" ")[1]);
+                long contentLength = 0;
+                boolean chunked = false;
+                String header;
+                while (!(header = source.readUtf8LineStrict()).isEmpty()) {
+                    int colon = header.indexOf(':');
+                    String name = header.substring(0, colon).trim();
+                    String value = header.substring(colon + 1).trim();
+                    if ("Content-Length".equalsIgnoreCase(name)) {
+                        contentLength = Long.parseLong(value);
+                    } else if ("Transfer-Encoding".equalsIgnoreCase(name) && "chunked".equalsIgnoreCase(value)) {
+                        chunked = true;
+                    }
+                }
+                if (chunked) {
+                    drainChunkedBody(source);
+                } else {
+                    source.skip(contentLength);
+                }
+                Buffer body = responseBodies.getOrDefault(path, new Buffer()).clone();
+                sink.writeUtf8("HTTP/1.1 200 OK\r\n")
+                        .writeUtf8("Content-Length: " + body.size() + "\r\n")
+                        .writeUtf8("\r\n");
+                sink.writeAll(body);
+                sink.flush();
+            }
+        } catch (IOException ignored) {
+            // connection closed by the client
+        }
+    }
+
+    private static void drainChunkedBody(final BufferedSource source) throws IOException {
+        while (true) {
+            String sizeLine = source.readUtf8LineStrict();
+            int extension = sizeLine.indexOf(';');
+            long size = Long.parseLong(extension == -1 ? sizeLine.trim() : sizeLine.substring(0, extension).trim(), 16);
+            if (size == 0) {
+                while (!source.readUtf8LineStrict().isEmpty()) {
+                    // skip trailers
+                }
+                return;
+            }
+            source.skip(size);
+            source.readUtf8LineStrict();
+        }
+    }
+
+    /**
+     * The Unix socket client sends the endpoint as a single encoded path segment, so the target is decoded before it
+     * is matched.
+     */
+    private static String path(final String target) throws IOException {
+        String path = target.split("\\?")[0];
+        return URLDecoder.decode(path, "UTF-8").replaceAll("^/+", "/");
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}